@@ -1,13 +1,37 @@
 import java.io.*;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class AADS {
     protected static class JSONException extends RuntimeException {
@@ -1203,6 +1227,545 @@ public class AADS {
         }
     }
 
+    /**
+     * Read the input bytes through NIO and decode them for the JSONTokener, without scanning lines.
+     * A file given by path is memory-mapped (or read through its FileChannel if it is too large to map),
+     * the standard input is read through its channel with a large buffer.
+     * The time spent on reading bytes is recorded separately, so that it is not mixed with the parsing time.
+     */
+    protected static class InputSource extends Reader {
+        private static final int BUFFER_SIZE = 1 << 20; // 1MB buffer for the channel
+
+        private final ReadableByteChannel channel; // null if the whole input has been mapped
+        private final ByteBuffer bytes; // bytes not decoded yet
+        private final CharsetDecoder decoder;
+        private boolean endOfInput; // whether all bytes have been read
+        private boolean done; // whether the decoder has been flushed, it cannot decode any more after that
+        private long readNanos; // time spent on reading bytes
+
+        private InputSource(ReadableByteChannel channel, ByteBuffer bytes, long readNanos) {
+            this.channel = channel;
+            this.bytes = bytes;
+            this.decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.endOfInput = channel == null;
+            this.readNanos = readNanos;
+        }
+
+        /* Map the file given by path into memory. */
+        public static InputSource open(String path) throws IOException {
+            long start = System.nanoTime();
+            FileChannel fileChannel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+            long size = fileChannel.size();
+            if (size > Integer.MAX_VALUE) { // a mapped buffer cannot exceed 2GB, read through the channel instead
+                return fromChannel(fileChannel);
+            }
+            MappedByteBuffer mapped = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.load(); // fault in all pages here, so that they are counted as reading time
+            fileChannel.close(); // the mapping remains valid after closing the channel
+            return new InputSource(null, mapped, System.nanoTime() - start);
+        }
+
+        /* Read the whole input of the channel into memory. */
+        public static InputSource readAll(InputSource source) throws IOException {
+            ByteBuffer all = ByteBuffer.allocate(BUFFER_SIZE);
+            long start = System.nanoTime();
+            while (source.channel.read(all) >= 0) {
+                if (!all.hasRemaining()) { // grow the buffer
+                    ByteBuffer larger = ByteBuffer.allocate(all.capacity() * 2);
+                    all.flip();
+                    larger.put(all);
+                    all = larger;
+                }
+            }
+            source.close();
+            all.flip();
+            return new InputSource(null, all, System.nanoTime() - start);
+        }
+
+        /* Read the standard input through its channel. */
+        public static InputSource stdin() {
+            return fromChannel(new FileInputStream(FileDescriptor.in).getChannel());
+        }
+
+        private static InputSource fromChannel(ReadableByteChannel channel) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.flip(); // nothing to decode at first
+            return new InputSource(channel, buffer, 0);
+        }
+
+        public long getReadNanos() {
+            return readNanos;
+        }
+
+        /* All bytes of the input, only available if the whole input is in memory. */
+        public ByteBuffer getBytes() {
+            if (channel != null) throw new IllegalStateException("The input is not in memory.");
+            return bytes.duplicate();
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (done) return -1;
+            CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+            // decode until at least one character is produced or the input ends
+            while (out.position() == off) {
+                CoderResult result = decoder.decode(bytes, out, endOfInput);
+                if (result.isOverflow()) break;
+                if (endOfInput) {
+                    decoder.flush(out);
+                    done = true;
+                    break;
+                }
+                fill(); // underflow, more bytes are needed
+            }
+            int n = out.position() - off;
+            return n == 0 ? -1 : n;
+        }
+
+        /* Read more bytes from the channel, keeping the bytes not decoded. */
+        private void fill() throws IOException {
+            bytes.compact();
+            long start = System.nanoTime();
+            int n = channel.read(bytes);
+            readNanos += System.nanoTime() - start;
+            bytes.flip();
+            if (n < 0) endOfInput = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) channel.close();
+        }
+    }
+
+    /**
+     * Stream the input JSON with the JSONTokener. 'Matrix.Data' is written straight into primitive arrays
+     * as its tokens arrive, and no JSONObject / JSONArray tree is built for it. Other members are parsed as usual.
+     */
+    protected static class JSONInputReader {
+        private final JSONTokener x;
+        private int siteCount; // number of sites, known after the first row of the first matrix
+        private int[] distanceMatrix; // the cell of (i, j) is stored at index 'i * siteCount + j'
+        private int[] timeMatrix;
+        private int[] distanceRow; // current row of distance before it is copied into the matrix
+        private int[] timeRow; // current row of time before it is copied into the matrix
+
+        public JSONInputReader(JSONTokener x) {
+            this.x = x;
+            this.siteCount = -1;
+            this.distanceMatrix = new int[0];
+            this.timeMatrix = new int[0];
+            this.distanceRow = new int[16];
+            this.timeRow = new int[16];
+        }
+
+        /* Read the whole input. */
+        public InputData read() throws JSONException {
+            JSONObject rawData = readObject(false);
+            if (siteCount < 0) siteCount = 0; // there is no 'Matrix.Data'
+            return new InputData(rawData, siteCount, distanceMatrix, timeMatrix);
+        }
+
+        /* Read an object, 'Matrix' is read by this reader itself to reach its 'Data'. */
+        private JSONObject readObject(boolean isMatrix) throws JSONException {
+            JSONObject object = new JSONObject();
+            if (x.nextClean() != '{') throw new JSONException("A JSONObject text must start with '{'.");
+
+            char c = x.nextClean();
+            while (c != '}') {
+                if (c == 0) throw new JSONException("A JSONObject text must end with '}'.");
+                String key = x.nextSimpleValue(c).toString();
+                if (x.nextClean() != ':') throw new JSONException("Expected a ':' after a key.");
+
+                if (!isMatrix && key.equals("Matrix")) {
+                    object.put(key, readObject(true));
+                } else if (isMatrix && key.equals("Data")) {
+                    readData(); // only the matrices are kept
+                } else {
+                    Object value = x.nextValue();
+                    if (value != null) object.put(key, value);
+                }
+
+                // key-value pairs are separated by commas, a comma before '}' is allowed
+                c = x.nextClean();
+                if (c == ',' || c == ';') {
+                    c = x.nextClean();
+                } else if (c != '}') {
+                    throw new JSONException("Expected a ',' or '}'.");
+                }
+            }
+            return object;
+        }
+
+        /* 'Data' is a list of matrices, the first one contains the distance and time between sites. */
+        private void readData() throws JSONException {
+            if (x.nextClean() != '[') throw new JSONException("'Matrix.Data' must start with '['.");
+            if (isEmptyArray()) return;
+            readMatrix();
+            while (hasNextElement()) {
+                skipValue();
+            }
+        }
+
+        /* Each row of the matrix is a list of cells, a cell is null or [distance, time]. */
+        private void readMatrix() throws JSONException {
+            if (x.nextClean() != '[') throw new JSONException("A matrix in 'Matrix.Data' must start with '['.");
+            int row = 0;
+            if (!isEmptyArray()) {
+                do {
+                    if (x.nextClean() != '[') throw new JSONException("A row in 'Matrix.Data' must start with '['" + x);
+                    readRow(row++);
+                } while (hasNextElement());
+            }
+            if (siteCount < 0) siteCount = 0; // empty matrix
+            if (row != siteCount) {
+                throw new JSONException("'Matrix.Data' has " + row + " rows, but " + siteCount + " columns.");
+            }
+        }
+
+        private void readRow(int row) throws JSONException {
+            int col = 0;
+            boolean hasNext = !isEmptyArray();
+            while (hasNext) {
+                char c = x.nextClean();
+                if (col == distanceRow.length) { // grow the buffers of current row
+                    distanceRow = Arrays.copyOf(distanceRow, col * 2);
+                    timeRow = Arrays.copyOf(timeRow, col * 2);
+                }
+                if (c == '[') { // [distance, time]
+                    distanceRow[col] = nextInt();
+                    if (x.nextClean() != ',') throw new JSONException("Expected a ',' in a cell of 'Matrix.Data'" + x);
+                    timeRow[col] = nextInt();
+                    if (hasNextElement()) throw new JSONException("A cell in 'Matrix.Data' must end with ']'" + x);
+                } else if (c == 'n') { // null, from the site to itself
+                    if (!x.next(3).equals("ull")) throw new JSONException("Expected a cell in 'Matrix.Data'" + x);
+                    distanceRow[col] = 0;
+                    timeRow[col] = 0;
+                } else if (c == ',') { // an empty cell is regarded as null
+                    x.back();
+                    distanceRow[col] = 0;
+                    timeRow[col] = 0;
+                } else {
+                    throw new JSONException("Expected a cell in 'Matrix.Data'" + x);
+                }
+                col++;
+                hasNext = hasNextElement();
+            }
+
+            // the first row decides the number of sites
+            if (siteCount < 0) {
+                if ((long) col * col > Integer.MAX_VALUE) throw new JSONException("'Matrix.Data' is too large.");
+                siteCount = col;
+                distanceMatrix = new int[col * col];
+                timeMatrix = new int[col * col];
+            }
+            if (col != siteCount || row >= siteCount) {
+                throw new JSONException("Row " + row + " in 'Matrix.Data' should have " + siteCount + " cells.");
+            }
+            System.arraycopy(distanceRow, 0, distanceMatrix, row * siteCount, col);
+            System.arraycopy(timeRow, 0, timeMatrix, row * siteCount, col);
+        }
+
+        /* Read an integer without creating any string, the fraction (if any) is truncated. */
+        private int nextInt() throws JSONException {
+            char c = x.nextClean();
+            boolean negative = c == '-';
+            if (negative) c = x.next();
+            if (c < '0' || c > '9') throw new JSONException("Expected a number in 'Matrix.Data'" + x);
+            long value = 0;
+            while (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                c = x.next();
+            }
+            if (c == '.') {
+                do {
+                    c = x.next();
+                } while (c >= '0' && c <= '9');
+            }
+            if (!x.end()) x.back();
+            return (int) (negative ? -value : value);
+        }
+
+        /* The '[' has been consumed, check whether the array ends at once. */
+        private boolean isEmptyArray() throws JSONException {
+            char c = x.nextClean();
+            if (c == 0) throw new JSONException("Expected a ',' or ']'.");
+            if (c == ']') return true;
+            x.back();
+            return false;
+        }
+
+        /* Read the separator after an element of an array, return false at the end of the array (a trailing comma is allowed). */
+        private boolean hasNextElement() throws JSONException {
+            char c = x.nextClean();
+            if (c == ',') {
+                return !isEmptyArray();
+            }
+            if (c != ']') throw new JSONException("Expected a ',' or ']'" + x);
+            return false;
+        }
+
+        /* Skip a value without building it. */
+        private void skipValue() throws JSONException {
+            char c = x.nextClean();
+            if (c == '"' || c == '\'') {
+                x.nextString(c);
+            } else if (c == '[' || c == '{') {
+                int depth = 1;
+                while (depth > 0) {
+                    c = x.next();
+                    if (c == 0) throw new JSONException("Unterminated value in 'Matrix.Data'.");
+                    if (c == '"' || c == '\'') {
+                        x.nextString(c);
+                    } else if (c == '[' || c == '{') {
+                        depth++;
+                    } else if (c == ']' || c == '}') {
+                        depth--;
+                    }
+                }
+            } else {
+                x.nextSimpleValue(c);
+            }
+        }
+    }
+
+    /**
+     * Binary compiled instance, a compact copy of the preprocessed data keyed by the content hash of the input.
+     * It is written on the first run and memory-mapped on later runs, so that the JSON is not parsed again.
+     * Layout (big-endian): header, instance name, sites, distance matrix, time matrix, vehicle table, customer table.
+     */
+    protected static class CompiledInstance {
+        private static final int MAGIC = 0x41414453; // "AADS"
+        private static final int VERSION = 2;
+
+        /* Load the compiled instance of the input from the cache directory, or compile and store it if missing. */
+        public static PreProcessData loadOrCompile(String path, Path cacheDir) throws IOException, IllegalAccessException, ParseException {
+            try (InputSource source = path != null ? InputSource.open(path) : InputSource.readAll(InputSource.stdin())) {
+                Path file = cacheDir.resolve(hash(source.getBytes()) + ".bin");
+                if (Files.isRegularFile(file)) {
+                    try {
+                        return load(file, new SolveContext());
+                    } catch (IOException | RuntimeException e) {
+                        // damaged or older file, compile it again (with a new context, as ids may have been taken)
+                    }
+                }
+                PreProcessData data = preProcessData(new JSONInputReader(new JSONTokener(source)).read(), new SolveContext());
+                Files.createDirectories(cacheDir);
+                write(file, data);
+                return data;
+            }
+        }
+
+        /* SHA-256 of the input bytes, in hexadecimal. */
+        public static String hash(ByteBuffer bytes) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                digest.update(bytes);
+                return HexFormat.of().formatHex(digest.digest());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e); // every Java platform supports SHA-256
+            }
+        }
+
+        /* Write the preprocessed data, before any vehicle or customer is changed by the solver. */
+        public static void write(Path file, PreProcessData data) throws IOException {
+            Path tmp = Files.createTempFile(file.getParent(), "instance", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 20))) {
+                // 1. header
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, data.getInstanceName());
+                out.writeInt(data.getRegulation().getConfiguredDutyMins());
+                out.writeInt(data.getRegulation().getConfiguredDriveMins());
+                // 2. sites and matrices
+                int n = data.getSiteCount();
+                out.writeInt(n);
+                for (Site site : data.getLocationList()) {
+                    writeString(out, String.join(",", site.getCoordinates()));
+                }
+                for (int value : data.getDistanceMatrix()) out.writeInt(value);
+                for (int value : data.getTimeMatrix()) out.writeInt(value);
+                // 3. vehicle table
+                out.writeInt(data.getVehicleList().size());
+                for (Vehicle vehicle : data.getVehicleList()) {
+                    out.writeLong(vehicle.getId());
+                    out.writeInt(vehicle.getStartSite());
+                    out.writeLong(vehicle.getStartTime().getTime());
+                    out.writeInt(vehicle.getWeight());
+                    out.writeInt(vehicle.getEndSite());
+                }
+                // 4. customer table
+                out.writeInt(data.getCustomerList().size());
+                for (Customer customer : data.getCustomerList()) {
+                    writeString(out, customer.getCollectId());
+                    writeString(out, customer.getDeliverId());
+                    out.writeInt((int) customer.getCollectSite().getId());
+                    out.writeInt((int) customer.getDeliverSite().getId());
+                    out.writeLong(customer.getCollectTimeWindow().getStart().getTime());
+                    out.writeLong(customer.getCollectTimeWindow().getEnd().getTime());
+                    out.writeLong(customer.getDeliverTimeWindow().getStart().getTime());
+                    out.writeLong(customer.getDeliverTimeWindow().getEnd().getTime());
+                    out.writeLong(customer.getCollectTimeinMinutes());
+                    out.writeLong(customer.getDeliverTimeinMinutes());
+                    out.writeInt(customer.getWeight());
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /* Map the compiled instance into memory and rebuild the preprocessed data from it. */
+        public static PreProcessData load(Path file, SolveContext context) throws IOException {
+            ByteBuffer in;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            // 1. header
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException("The file " + file + " is not a compiled instance of this version.");
+            }
+            String instanceName = readString(in);
+            int configuredDutyMins = in.getInt();
+            int configuredDriveMins = in.getInt();
+            // 2. sites and matrices
+            int n = in.getInt();
+            List<Site> locationList = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                locationList.add(new Site(context, readString(in).split(",")));
+            }
+            int[] distanceMatrix = new int[n * n];
+            int[] timeMatrix = new int[n * n];
+            in.asIntBuffer().get(distanceMatrix);
+            in.position(in.position() + n * n * 4);
+            in.asIntBuffer().get(timeMatrix);
+            in.position(in.position() + n * n * 4);
+            // 3. vehicle table
+            int vehicleCount = in.getInt();
+            List<Vehicle> vehicleList = new ArrayList<>(vehicleCount);
+            for (int i = 0; i < vehicleCount; i++) {
+                long id = in.getLong();
+                int startSite = in.getInt();
+                Date startTime = new Date(in.getLong());
+                int weight = in.getInt();
+                int endSite = in.getInt();
+                vehicleList.add(new Vehicle(id, startSite, startTime, weight, endSite,
+                        new Timeline(), startSite));
+            }
+            // 4. customer table
+            int customerCount = in.getInt();
+            List<Customer> customerList = new ArrayList<>(customerCount);
+            for (int i = 0; i < customerCount; i++) {
+                String collectId = readString(in);
+                String deliverId = readString(in);
+                Site collectSite = locationList.get(in.getInt());
+                Site deliverSite = locationList.get(in.getInt());
+                Date earliestCollect = new Date(in.getLong());
+                Date latestCollect = new Date(in.getLong());
+                Date earliestDeliver = new Date(in.getLong());
+                Date latestDeliver = new Date(in.getLong());
+                Time collect = new Time(context, earliestCollect, latestCollect,
+                        (latestCollect.getTime() - earliestCollect.getTime()) / (1000.0 * 60 * 60), collectId, 0, 0, 0);
+                Time deliver = new Time(context, earliestDeliver, latestDeliver,
+                        (latestDeliver.getTime() - earliestDeliver.getTime()) / (1000.0 * 60 * 60), deliverId, 0, 0, 0);
+                long collectTimeInMinutes = in.getLong();
+                long deliverTimeInMinutes = in.getLong();
+                int weight = in.getInt();
+                customerList.add(new Customer(context, collectId, deliverId, collectSite, deliverSite, collect, deliver,
+                        collectTimeInMinutes, deliverTimeInMinutes, weight, false, -1));
+            }
+            PreProcessData data = new PreProcessData(instanceName, locationList, vehicleList, customerList,
+                    null, n, distanceMatrix, timeMatrix, new Random(SEED), context);
+            // the profile is selected again, so that -Daads.regulation applies to a cached instance
+            data.setRegulation(RegulationProfile.of(System.getProperty("aads.regulation", "EU"),
+                    configuredDutyMins, configuredDriveMins));
+            return data;
+        }
+
+        private static void writeString(DataOutputStream out, String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(ByteBuffer in) {
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Input DTO, containing the raw data without 'Matrix.Data' and the matrices read from 'Matrix.Data'
+     */
+    protected static class InputData {
+        private JSONObject rawData;
+        private int siteCount; // number of sites
+        private int[] distanceMatrix; // the cell of (i, j) is stored at index 'i * siteCount + j'
+        private int[] timeMatrix;
+        private long readTime; // time used on reading the input (unit: ms)
+        private long parseTime; // time used on parsing the input (unit: ms)
+
+        public InputData() {
+            this.rawData = new JSONObject();
+            this.siteCount = 0;
+            this.distanceMatrix = new int[0];
+            this.timeMatrix = new int[0];
+            this.readTime = 0;
+            this.parseTime = 0;
+        }
+
+        public InputData(JSONObject rawData, int siteCount, int[] distanceMatrix, int[] timeMatrix) {
+            this.rawData = rawData;
+            this.siteCount = siteCount;
+            this.distanceMatrix = distanceMatrix;
+            this.timeMatrix = timeMatrix;
+        }
+
+        public JSONObject getRawData() {
+            return rawData;
+        }
+
+        public int getSiteCount() {
+            return siteCount;
+        }
+
+        public int[] getDistanceMatrix() {
+            return distanceMatrix;
+        }
+
+        public int[] getTimeMatrix() {
+            return timeMatrix;
+        }
+
+        public void setReadTime(long readTime) {
+            this.readTime = readTime;
+        }
+
+        public long getReadTime() {
+            return readTime;
+        }
+
+        public void setParseTime(long parseTime) {
+            this.parseTime = parseTime;
+        }
+
+        public long getParseTime() {
+            return parseTime;
+        }
+
+        @Override
+        public String toString() {
+            return "InputDataDto{" +
+                    "rawData=" + rawData.toString() +
+                    ", siteCount=" + siteCount +
+                    ", readTime=" + readTime + "ms" +
+                    ", parseTime=" + parseTime + "ms" +
+                    '}';
+        }
+    }
+
     protected interface Tuple<A, B> {
         A getFirst();
 
@@ -1898,159 +2461,447 @@ public class AADS {
     }
 
     /**
-     * get the input from the Scanner
+     * Array-backed adjacency graph. Each vertex keeps arrays of its outgoing and incoming edges, and every edge
+     * is indexed by the ids of its two end vertices, so getEdge is O(1) and iterating the edges of a vertex is O(deg).
      */
-    protected static JSONObject getInput() throws IllegalArgumentException {
-        // 1. Getting the input
-        Scanner input = new Scanner(System.in);
-        StringBuilder sb = new StringBuilder();
-        while (input.hasNextLine()) {
-            String nextLine = input.nextLine().trim(); // ignore the space
-            if (nextLine.isEmpty()) break; // stop reading while reaching the empty line
-            sb.append(nextLine); // add current line to the StringBuilder
-        }
-        input.close();
-
-        // 2. Parsing Json String to JsonObject / JsonArray
-        JSONObject jsonObject = new JSONObject(sb.toString());
-        return jsonObject;
-    }
-
-    /**
-     * preprocess data
-     */
-    protected static PreProcessData preProcessData(JSONObject rawData) throws IllegalArgumentException, IllegalAccessException, ParseException {
-        // 1. Getting 'InstanceName', without considering 'Configuration'.
-        String instanceName = (rawData.opt("InstanceName")).toString();
-
-        // 2. Obtain info about the site(collect site and deliver site)
-        JSONObject matrix = rawData.optJSONObject("Matrix");
-        // obtain the locations
-        JSONArray matrixData = new JSONArray(String.valueOf(matrix.opt("Locations")));
-        // store the data after processing
-        List<Site> locationList = new ArrayList<>();
-        // get the distance and time from each site to other sites
-        JSONArray LocationData = new JSONArray(String.valueOf(matrix.opt("Data")));
-        JSONArray tmpData = new JSONArray(String.valueOf(LocationData.getString(0))); // 1d-array representing distance time
+    protected static class AdjacencyArrayGraph<V, E> implements Graph<V, E> {
+        private boolean isDirected;
+        private List<InnerVertex<V>> vertices = new ArrayList<>();
+        private List<InnerEdge<E>> edges = new ArrayList<>();
+        private Map<Long, InnerEdge<E>> edgeIndex = new HashMap<>(); // key: ids of the two end vertices
+        private int nextVertexId = 0; // the id of a vertex never changes, even if other vertices are removed
 
-        for (int i = 0; i < matrixData.length(); i++) {
-            String[] coordinates = ((String) matrixData.opt(i)).split(","); // split by comma to get the coordinates
-            JSONArray tmp = new JSONArray(String.valueOf(tmpData.getString(i))); // get the distance and time from i-th site
-            Site site = new Site(coordinates, tmp); // create a dto
-            locationList.add(site);
-        }
-//        System.out.println("There are " + locationList.size() + " locations in this input."); // test
-//        System.out.println("location List: " + locationList.toString()); // test
+        /**
+         * vertex ADT
+         */
+        private class InnerVertex<V> implements Vertex<V> {
+            private V element;
+            private int id; // permanent id, used as the key of the edge index
+            private int pos; // index in the vertex array, -1 if removed
+            private List<InnerEdge<E>> outgoing = new ArrayList<>();
+            private List<InnerEdge<E>> incoming = new ArrayList<>(); // not used by an undirected graph
 
-        // 3. Obtain info about the vehicles
-        JSONArray vehicles = rawData.optJSONArray("Vehicles");
-        List<Vehicle> vehicleList = new ArrayList<>();
-        for (Object o : vehicles.toList()) { // each item in the list is a HashMap
-            Map<String, Object> v = new HashMap<>();
-            if (o instanceof HashMap) {
-                v = (Map<String, Object>) o;
-            } else {
-//                throw new JSONException("This is not a HashMap object.");
+            public InnerVertex(V elem, int id) {
+                element = elem;
+                this.id = id;
             }
 
-            // create a dto about vehicles
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
-            // get vehicleId and weight
-            List<Map<String, Object>> tmp = (ArrayList) v.get("VehicleCapacity");
-            Map<String, Object> capacityMap = tmp.get(0);
+            /* verify whether this vertex instance belongs to the given graph */
+            public boolean validate(Graph<V, E> graph) {
+                return AdjacencyArrayGraph.this == graph && pos >= 0;
+            }
 
-            // create Vehicle DTO
-            Vehicle dto = new Vehicle(Long.parseLong((String) capacityMap.get("CompartmentId")),
-                    Integer.parseInt((String) v.get("StartSite")),
-                    sdf.parse((String) v.get("StartTime")),
-                    (Integer) capacityMap.get("Weight"),
-                    Integer.parseInt((String) v.get("EndSite")),
-                    new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
-                    new ArrayList<>(), new ArrayList<>(), Integer.parseInt((String) v.get("StartSite")));
-            vehicleList.add(dto);
+            public V getElement() {
+                return element;
+            }
         }
-//        System.out.println("There are " + vehicleList.size() + " vehicles in this input."); // test
-//        System.out.println("Vehicle list: " + vehicleList.toString()); // test
 
-        // 4. Obtain info about the customers
-        JSONArray orders = rawData.optJSONArray("Orders");
-        List<Customer> customerList = new ArrayList<>();
-        if (orders.toList() instanceof ArrayList) { // the type is ArrayList
-            for (Object o : orders.toList()) {
-                Map<String, Object> mapO = (HashMap) o; // the type of o is HashMap
+        /**
+         * edge ADT
+         */
+        private class InnerEdge<E> implements Edge<E> {
+            private E element;
+            private Vertex<V>[] endpoints;
+            private int pos; // index in the edge array, -1 if removed
+            private int outPos; // index in the outgoing array of the origin
+            private int inPos; // index in the incoming array of the destination
 
-                // find CollectSite and DeliverSite DTO according to the siteId
-                Site collectSite = new Site(), deliverSite = new Site();
-                for (Site site : locationList) {
-                    if (mapO.get("CollectSiteId").equals(String.valueOf(site.getId()))) {
-                        collectSite = site;
-                    }
-                    if (mapO.get("DeliverSiteId").equals(String.valueOf(site.getId()))) {
-                        deliverSite = site;
-                    }
-                }
+            @SuppressWarnings({"unchecked"})
+            public InnerEdge(Vertex<V> u, Vertex<V> v, E elem) {
+                element = elem;
+                endpoints = (Vertex<V>[]) new Vertex[]{u, v}; // store two vertices of the edge
+            }
 
-                // process CollectTime DTO
-                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
-                Date earliestCollect = sdf.parse((String) mapO.get("EarliestCollect1"));
-                Date latestCollect = sdf.parse((String) mapO.get("LatestCollect1"));
-                long diff = latestCollect.getTime() - earliestCollect.getTime();
-                Time collect = new Time(earliestCollect, latestCollect, diff / (1000.0 * 60 * 60),
-                        (String) mapO.get("CollectId"), 0, 0, 0);
+            public E getElement() {
+                return element;
+            }
 
-                // process DeliverTime DTO
-                Date earliestDeliver = sdf.parse((String) mapO.get("EarliestDeliver1"));
-                Date latestDeliver = sdf.parse((String) mapO.get("LatestDeliver1"));
-                diff = latestDeliver.getTime() - earliestDeliver.getTime();
-                Time deliver = new Time(earliestDeliver, latestDeliver, diff / (1000.0 * 60 * 60),
-                        (String) mapO.get("DeliverId"), 0, 0, 0);
+            public Vertex<V>[] getEndpoints() {
+                return endpoints;
+            }
 
-                // create Customer DTO
-                Customer customer = new Customer(
-                        (String) mapO.get("CollectId"), (String) mapO.get("DeliverId"),
-                        collectSite, deliverSite, collect, deliver, // the site and time of collect and deliver
-                        ((Integer) mapO.get("CollectTimeInMinutes")).longValue(), // time in collect
-                        ((Integer) mapO.get("DeliverTimeInMinutes")).longValue(), // time in deliver
-                        (Integer) mapO.get("Weight"), // weight
-                        false, // default value, no collect at the beginning
-                        -1); // assigned route id
-                customerList.add(customer);
+            /* verify whether this edge instance belongs to the given graph */
+            public boolean validate(Graph<V, E> graph) {
+                return AdjacencyArrayGraph.this == graph && pos >= 0;
             }
         }
-//        System.out.println("There are " + customerList.size() + " customers in this input."); // test
-//        System.out.println("Contents in the customerList: \n" + customerList.toString()); // test
 
-        // (5.) for testing
-        AdjacencyListGraph<Site, Integer> graph = new AdjacencyListGraph(true); // graph containing all locations and routes
+        public AdjacencyArrayGraph(boolean directed) {
+            isDirected = directed;
+        }
 
-        // traverse 'locationList' and create all locations (vertex)
-        List<Vertex<Site>> allVerticesList = new ArrayList<>();
-        for (Site site : locationList) {
-            Site siteGraph = new Site(site.getCoordinates());
-            Vertex<Site> v = graph.insertVertex(siteGraph);
-            allVerticesList.add(v);
+        public int numVertices() {
+            return vertices.size();
         }
 
-        // traverse every vertex and create edges
-        for (Site v : locationList) {
-            JSONArray disAndTime = v.getDisAndTime();
-            for (int i = 0; i < disAndTime.length(); i++) {
-                if (i != v.getId()) {
-                    // as long as it is not null, it means the distance/time to other places, then add an edge
-                    JSONArray arr = new JSONArray((String) disAndTime.opt(i));
-                    // get the head of a directed arc
-                    Vertex<Site> startV = allVerticesList.get((int) v.getId());
-                    // get the tail of a directed arc
-                    Vertex<Site> endV = allVerticesList.get(i);
-                    // arr.opt(0): distance; arr.opt(1): time
-//                    graph.insertEdge(v, endV, (Integer) arr.opt(0));
-                    graph.insertEdge(startV, endV, (Integer) arr.opt(1));
-                }
+        @SuppressWarnings({"unchecked"})
+        public Iterable<Vertex<V>> vertices() {
+            return Collections.unmodifiableList((List<Vertex<V>>) (List<?>) vertices);
+        }
+
+        public int numEdges() {
+            return edges.size();
+        }
+
+        // output each edge with its end vertices
+        public Iterable<Tuple<Edge<E>, List<Vertex<V>>>> edges() {
+            List<Tuple<Edge<E>, List<Vertex<V>>>> res = new ArrayList<>(edges.size());
+            for (InnerEdge<E> edge : edges) {
+                res.add(new InnerTuple<>(edge, Arrays.asList(edge.getEndpoints())));
             }
+            return res;
         }
 
-        // check info of the graph
-//        System.out.println("After constructing the graph 'graph': \n" + graph);
+        public int outDegree(Vertex<V> v) throws IllegalArgumentException {
+            return validate(v).outgoing.size();
+        }
+
+        public int inDegree(Vertex<V> v) throws IllegalArgumentException {
+            if (!isDirected) {
+                return outDegree(v);
+            }
+            return validate(v).incoming.size();
+        }
+
+        @SuppressWarnings({"unchecked"})
+        public Iterable<Edge<E>> outgoingEdges(Vertex<V> v) throws IllegalArgumentException {
+            return Collections.unmodifiableList((List<Edge<E>>) (List<?>) validate(v).outgoing);
+        }
+
+        @SuppressWarnings({"unchecked"})
+        public Iterable<Edge<E>> incomingEdges(Vertex<V> v) throws IllegalArgumentException {
+            if (!isDirected) {
+                return outgoingEdges(v);
+            }
+            return Collections.unmodifiableList((List<Edge<E>>) (List<?>) validate(v).incoming);
+        }
+
+        public Edge<E> getEdge(Vertex<V> u, Vertex<V> v) throws IllegalArgumentException {
+            return edgeIndex.get(key(validate(u), validate(v))); // null if there is no edge between u and v
+        }
+
+        public Vertex<V>[] endVertices(Edge<E> e) throws IllegalArgumentException {
+            return validate(e).getEndpoints();
+        }
+
+        /* return the vertex opposite to vertex v on edge e */
+        public Vertex<V> opposite(Vertex<V> v, Edge<E> e) throws IllegalArgumentException {
+            Vertex<V>[] endpoints = validate(e).getEndpoints();
+            if (endpoints[0] == v) {
+                return endpoints[1];
+            } else if (endpoints[1] == v) {
+                return endpoints[0];
+            } else {
+                throw new IllegalArgumentException("v is not incident to this edge");
+            }
+        }
+
+        public Vertex<V> insertVertex(V element) {
+            InnerVertex<V> v = new InnerVertex<>(element, nextVertexId++);
+            v.pos = vertices.size();
+            vertices.add(v);
+            return v;
+        }
+
+        public Edge<E> insertEdge(Vertex<V> u, Vertex<V> v, E element) throws IllegalArgumentException {
+            InnerVertex<V> origin = validate(u);
+            InnerVertex<V> destination = validate(v);
+            long key = key(origin, destination);
+            if (edgeIndex.containsKey(key)) throw new IllegalArgumentException("Edge from u to v exists");
+
+            InnerEdge<E> e = new InnerEdge<>(u, v, element);
+            e.pos = edges.size();
+            edges.add(e);
+            edgeIndex.put(key, e);
+            // add information into the adjacency arrays
+            e.outPos = origin.outgoing.size();
+            origin.outgoing.add(e);
+            if (isDirected) {
+                e.inPos = destination.incoming.size();
+                destination.incoming.add(e);
+            } else if (origin != destination) {
+                e.inPos = destination.outgoing.size();
+                destination.outgoing.add(e);
+            }
+            return e;
+        }
+
+        public void removeVertex(Vertex<V> v) throws IllegalArgumentException {
+            InnerVertex<V> vert = validate(v);
+            // remove all related edges from the graph
+            while (!vert.outgoing.isEmpty()) {
+                removeEdge(vert.outgoing.get(vert.outgoing.size() - 1));
+            }
+            while (!vert.incoming.isEmpty()) {
+                removeEdge(vert.incoming.get(vert.incoming.size() - 1));
+            }
+            // remove this vertex from the vertex array by moving the last vertex to its index
+            InnerVertex<V> last = vertices.remove(vertices.size() - 1);
+            if (last != vert) {
+                vertices.set(vert.pos, last);
+                last.pos = vert.pos;
+            }
+            vert.pos = -1; // invalidate vertex object
+        }
+
+        @SuppressWarnings({"unchecked"})
+        public void removeEdge(Edge<E> e) throws IllegalArgumentException {
+            InnerEdge<E> edge = validate(e);
+            InnerVertex<V> u = (InnerVertex<V>) edge.getEndpoints()[0];
+            InnerVertex<V> v = (InnerVertex<V>) edge.getEndpoints()[1];
+            edgeIndex.remove(key(u, v));
+            // remove the edge from the adjacency arrays
+            removeAt(u, u.outgoing, edge.outPos);
+            if (isDirected) {
+                removeAt(v, v.incoming, edge.inPos);
+            } else if (u != v) {
+                removeAt(v, v.outgoing, edge.inPos);
+            }
+            // remove the edge from the edge array
+            InnerEdge<E> last = edges.remove(edges.size() - 1);
+            if (last != edge) {
+                edges.set(edge.pos, last);
+                last.pos = edge.pos;
+            }
+            edge.pos = -1; // invalidate edge object
+        }
+
+        /* remove the edge at index i of an adjacency array by moving the last edge there, and update the index of the moved edge */
+        private void removeAt(InnerVertex<V> owner, List<InnerEdge<E>> list, int i) {
+            InnerEdge<E> last = list.remove(list.size() - 1);
+            if (i < list.size()) {
+                list.set(i, last);
+                // for an undirected graph, the outgoing array also holds the edges whose destination is the owner
+                if (list == owner.outgoing && last.getEndpoints()[0] == owner) {
+                    last.outPos = i;
+                } else {
+                    last.inPos = i;
+                }
+            }
+        }
+
+        /* the key of an edge in the index, the order of end vertices is ignored for an undirected graph */
+        private long key(InnerVertex<V> u, InnerVertex<V> v) {
+            int first = u.id, second = v.id;
+            if (!isDirected && first > second) {
+                first = v.id;
+                second = u.id;
+            }
+            return ((long) first << 32) | (second & 0xffffffffL);
+        }
+
+        @SuppressWarnings({"unchecked"})
+        private InnerVertex<V> validate(Vertex<V> v) {
+            if (!(v instanceof AdjacencyArrayGraph.InnerVertex)) throw new IllegalArgumentException("Invalid vertex");
+            InnerVertex<V> vert = (InnerVertex<V>) v;
+            if (!vert.validate(this)) throw new IllegalArgumentException("Invalid vertex");
+            return vert;
+        }
+
+        @SuppressWarnings({"unchecked"})
+        private InnerEdge<E> validate(Edge<E> e) {
+            if (!(e instanceof AdjacencyArrayGraph.InnerEdge)) throw new IllegalArgumentException("Invalid edge");
+            InnerEdge<E> edge = (InnerEdge<E>) e;
+            if (!edge.validate(this)) throw new IllegalArgumentException("Invalid edge");
+            return edge;
+        }
+
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (Vertex<V> v : vertices()) {
+                sb.append("Vertex " + v.getElement() + "\n");
+                if (isDirected) sb.append(" [outgoing]");
+                sb.append(" " + outDegree(v) + " adjacencies:");
+                for (Edge<E> e : outgoingEdges(v))
+                    sb.append(String.format(" (%s, %s)", opposite(v, e).getElement(), e.getElement()));
+                sb.append("\n");
+                if (isDirected) {
+                    sb.append(" [incoming]");
+                    sb.append(" " + inDegree(v) + " adjacencies:");
+                    for (Edge<E> e : incomingEdges(v))
+                        sb.append(String.format(" (%s, %s)", opposite(v, e).getElement(), e.getElement()));
+                    sb.append("\n");
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * get the input from the file given by path, or from the standard input if the path is null
+     */
+    protected static InputData getInput(String path) throws IllegalArgumentException, IOException {
+        long start = System.nanoTime();
+        // 1. Getting the input, the whole text is passed to the JSONTokener (blank lines are not the end)
+        try (InputSource source = path != null ? InputSource.open(path) : InputSource.stdin()) {
+            // 2. Parsing Json, 'Matrix.Data' is streamed into the matrices instead of JsonArray
+            InputData input = new JSONInputReader(new JSONTokener(source)).read();
+            // 3. record the time used, parsing time is the rest of the time except reading
+            long readNanos = source.getReadNanos();
+            input.setReadTime(readNanos / 1_000_000);
+            input.setParseTime((System.nanoTime() - start - readNanos) / 1_000_000);
+            return input;
+        }
+    }
+
+    protected static final long SEED = 20717331L; // seed of the random number generator (student id)
+
+    /**
+     * preprocess data
+     */
+    protected static PreProcessData preProcessData(InputData input, SolveContext context) throws IllegalArgumentException, IllegalAccessException, ParseException {
+        JSONObject rawData = input.getRawData();
+        // 1. Getting 'InstanceName' and the limits in 'Configuration', which override the selected regulation profile.
+        String instanceName = (rawData.opt("InstanceName")).toString();
+        RegulationProfile regulation = RegulationProfile.of(rawData.optJSONObject("Configuration"));
+
+        // 2. Obtain info about the site(collect site and deliver site)
+        JSONObject matrix = rawData.optJSONObject("Matrix");
+        // obtain the locations
+        JSONArray matrixData = matrix.optJSONArray("Locations");
+        // store the data after processing
+        List<Site> locationList = new ArrayList<>();
+        // the distance and time from each site to other sites have been read into flat matrices,
+        // the cell of (i, j) is stored at index 'i * n + j'
+        int n = input.getSiteCount();
+        int[] distanceMatrix = input.getDistanceMatrix();
+        int[] timeMatrix = input.getTimeMatrix();
+        if (matrixData.length() != n) {
+            throw new JSONException("There are " + matrixData.length() + " locations, but the matrix has " + n + " sites.");
+        }
+
+        for (int i = 0; i < n; i++) {
+            String[] coordinates = ((String) matrixData.opt(i)).split(","); // split by comma to get the coordinates
+            Site site = new Site(context, coordinates); // create a dto
+            locationList.add(site);
+        }
+//        System.out.println("There are " + locationList.size() + " locations in this input."); // test
+//        System.out.println("location List: " + locationList.toString()); // test
+
+        // 3. Obtain info about the vehicles
+        JSONArray vehicles = rawData.optJSONArray("Vehicles");
+        List<Vehicle> vehicleList = new ArrayList<>();
+        for (Object o : vehicles.toList()) { // each item in the list is a HashMap
+            Map<String, Object> v = new HashMap<>();
+            if (o instanceof HashMap) {
+                v = (Map<String, Object>) o;
+            } else {
+//                throw new JSONException("This is not a HashMap object.");
+            }
+
+            // create a dto about vehicles
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+            // get vehicleId and weight
+            List<Map<String, Object>> tmp = (ArrayList) v.get("VehicleCapacity");
+            Map<String, Object> capacityMap = tmp.get(0);
+
+            // create Vehicle DTO
+            Vehicle dto = new Vehicle(Long.parseLong((String) capacityMap.get("CompartmentId")),
+                    Integer.parseInt((String) v.get("StartSite")),
+                    sdf.parse((String) v.get("StartTime")),
+                    (Integer) capacityMap.get("Weight"),
+                    Integer.parseInt((String) v.get("EndSite")),
+                    new Timeline(), Integer.parseInt((String) v.get("StartSite")));
+            vehicleList.add(dto);
+        }
+//        System.out.println("There are " + vehicleList.size() + " vehicles in this input."); // test
+//        System.out.println("Vehicle list: " + vehicleList.toString()); // test
+
+        // 4. Obtain info about the customers
+        JSONArray orders = rawData.optJSONArray("Orders");
+        List<Customer> customerList = new ArrayList<>();
+        if (orders.toList() instanceof ArrayList) { // the type is ArrayList
+            for (Object o : orders.toList()) {
+                Map<String, Object> mapO = (HashMap) o; // the type of o is HashMap
+
+                // find CollectSite and DeliverSite DTO according to the siteId
+                Site collectSite = findSite(locationList, mapO.get("CollectSiteId"));
+                Site deliverSite = findSite(locationList, mapO.get("DeliverSiteId"));
+
+                // process CollectTime DTO
+                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+                Date earliestCollect = sdf.parse((String) mapO.get("EarliestCollect1"));
+                Date latestCollect = sdf.parse((String) mapO.get("LatestCollect1"));
+                long diff = latestCollect.getTime() - earliestCollect.getTime();
+                Time collect = new Time(context, earliestCollect, latestCollect, diff / (1000.0 * 60 * 60),
+                        (String) mapO.get("CollectId"), 0, 0, 0);
+
+                // process DeliverTime DTO
+                Date earliestDeliver = sdf.parse((String) mapO.get("EarliestDeliver1"));
+                Date latestDeliver = sdf.parse((String) mapO.get("LatestDeliver1"));
+                diff = latestDeliver.getTime() - earliestDeliver.getTime();
+                Time deliver = new Time(context, earliestDeliver, latestDeliver, diff / (1000.0 * 60 * 60),
+                        (String) mapO.get("DeliverId"), 0, 0, 0);
+
+                // create Customer DTO
+                Customer customer = new Customer(context,
+                        (String) mapO.get("CollectId"), (String) mapO.get("DeliverId"),
+                        collectSite, deliverSite, collect, deliver, // the site and time of collect and deliver
+                        ((Integer) mapO.get("CollectTimeInMinutes")).longValue(), // time in collect
+                        ((Integer) mapO.get("DeliverTimeInMinutes")).longValue(), // time in deliver
+                        (Integer) mapO.get("Weight"), // weight
+                        false, // default value, no collect at the beginning
+                        -1); // assigned route id
+                customerList.add(customer);
+            }
+        }
+//        System.out.println("There are " + customerList.size() + " customers in this input."); // test
+//        System.out.println("Contents in the customerList: \n" + customerList.toString()); // test
+
+        // 5. assign global variables and parameters, the graph is built from 'timeMatrix' on first use
+        PreProcessData data = new PreProcessData(instanceName, locationList, vehicleList, customerList,
+                null, n, distanceMatrix, timeMatrix, new Random(SEED), context); // input the random with seed
+        data.setRegulation(regulation);
+        return data;
+    }
+
+    /**
+     * find the site by the site id of an order, the index of a site in 'locationList' is its id
+     */
+    protected static Site findSite(List<Site> locationList, Object siteId) {
+        int id;
+        try {
+            id = Integer.parseInt((String) siteId); // parsed once for each order
+        } catch (ClassCastException | NumberFormatException e) {
+            return new Site(); // unknown site
+        }
+        if (id < 0 || id >= locationList.size()) {
+            return new Site(); // unknown site
+        }
+        return locationList.get(id);
+    }
+
+    /**
+     * build the graph containing all locations and routes, the weight of an edge is the travel time
+     */
+    protected static Graph<Site, Integer> buildGraph(List<Site> locationList, int n, int[] timeMatrix) {
+        Graph<Site, Integer> graph = new AdjacencyArrayGraph<>(true); // graph containing all locations and routes
+
+        // traverse 'locationList' and insert all locations (vertex), the sites are shared rather than copied
+        List<Vertex<Site>> allVerticesList = new ArrayList<>(locationList.size());
+        for (Site site : locationList) {
+            Vertex<Site> v = graph.insertVertex(site);
+            allVerticesList.add(v);
+        }
+
+        // traverse every vertex and create edges
+        for (Site v : locationList) {
+            int from = (int) v.getId();
+            for (int i = 0; i < n; i++) {
+                if (i != from) {
+                    // as long as it is not the site itself, it means the distance/time to other places, then add an edge
+                    // get the head of a directed arc
+                    Vertex<Site> startV = allVerticesList.get(from);
+                    // get the tail of a directed arc
+                    Vertex<Site> endV = allVerticesList.get(i);
+                    // timeMatrix: time
+                    graph.insertEdge(startV, endV, timeMatrix[from * n + i]);
+                }
+            }
+        }
+
+        // check info of the graph
+//        System.out.println("After constructing the graph 'graph': \n" + graph);
 //        System.out.println("Edges in the graph 'graph': ");
 //        // get tuples
 //        for (Tuple<Edge<Integer>, List<Vertex<SiteGraph>>> tuple : graph.edges()) {
@@ -2059,10 +2910,7 @@ public class AADS {
 //            System.out.println("Vertices(Sites): { " + endVertices.get(0).getElement() + ", " +
 //                    endVertices.get(1).getElement() + " }, Edge(Distance): " + edge.getElement());
 //        }
-
-        // 6. assign global variables and parameters
-        return new PreProcessData(instanceName, locationList, vehicleList, customerList,
-                graph, new Random(20717331L)); // input the random with seed
+        return graph;
     }
 
     /**
@@ -2079,8 +2927,6 @@ public class AADS {
         private long vehicleId; // vehicle id
         private long customerId;
 
-        private static int next = 0; // auto-increment id
-
         public Time() {
             this.id = 0;
             this.start = new Date();
@@ -2093,8 +2939,8 @@ public class AADS {
         }
 
         // constructor for temporarily storage
-        public Time(Date start, Date end, double duration, String jobId, int distance, Vehicle vehicle, long customerId) {
-            this.id = next++;
+        public Time(SolveContext context, Date start, Date end, double duration, String jobId, int distance, Vehicle vehicle, long customerId) {
+            this.id = context.nextTimeId();
             this.start = start;
             this.end = end;
             this.duration = duration;
@@ -2104,8 +2950,8 @@ public class AADS {
             this.customerId = customerId;
         }
 
-        public Time(Date start, Date end, double duration, String jobId, int distance, long vehicleId, long customerId) {
-            this.id = next++;
+        public Time(SolveContext context, Date start, Date end, double duration, String jobId, int distance, long vehicleId, long customerId) {
+            this.id = context.nextTimeId();
             this.start = start;
             this.end = end;
             this.duration = duration;
@@ -2213,148 +3059,196 @@ public class AADS {
     }
 
     /**
-     * Vehicle DTO
+     * Time nodes of a vehicle for the output, appended in route order into parallel arrays,
+     * a collect/deliver node keeps its job id and the other nodes only their type
      */
-    protected static class Vehicle {
-        private long id; // vehicle identification number
-        private int startSite; // start site id
-        private Date startTime; // when vehicle starts working
-        private int weight; // weight of the vehicle
-        private int endSite; // destination id
+    protected static class Timeline {
+        protected static final byte DRIVE = 0;
+        protected static final byte BREAK = 1;
+        protected static final byte WAIT = 2;
+        protected static final byte DELAY = 3;
+        protected static final byte RETURN = 4; // return to the depot
+        protected static final byte JOB = 5; // collect/deliver
+        private static final String[] TYPES = {"drive", "break", "wait", "delay", "return"};
+
+        private byte[] type = new byte[16];
+        private long[] start = new long[16];
+        private long[] duration = new long[16];
+        private int[] distance = new int[16];
+        private long[] customerId = new long[16];
+        private String[] jobId = new String[16]; // only for the collect/deliver nodes
+        private int size;
+
+        /* append a node, the type is drive/break/wait/delay/return or the collect/deliver job id */
+        public void add(String type, long start, long duration, int distance, long customerId) {
+            if (size == this.type.length) {
+                int capacity = size * 2;
+                this.type = Arrays.copyOf(this.type, capacity);
+                this.start = Arrays.copyOf(this.start, capacity);
+                this.duration = Arrays.copyOf(this.duration, capacity);
+                this.distance = Arrays.copyOf(this.distance, capacity);
+                this.customerId = Arrays.copyOf(this.customerId, capacity);
+                this.jobId = Arrays.copyOf(this.jobId, capacity);
+            }
+            byte code = JOB;
+            for (byte t = DRIVE; t < JOB; t++) {
+                if (TYPES[t].equals(type)) code = t;
+            }
+            this.type[size] = code;
+            this.start[size] = start;
+            this.duration[size] = duration;
+            this.distance[size] = distance;
+            this.customerId[size] = customerId;
+            this.jobId[size] = code == JOB ? type : null;
+            size++;
+        }
 
-        private final double mContinuousDrivingInHours = 4.5; // maximum continuous driving time
-        private final int mDailyDriveInHours = 9; // maximum daily driving time
-        private final int mDurationInHours = 13; // maximum route duration
+        public void clear() {
+            Arrays.fill(jobId, 0, size, null);
+            size = 0;
+        }
 
-        // time list for the output
-        private List<Time> driveTimeList;
-        private List<Time> otherTimeList;
-        private List<Time> breakTimeList;
-        private List<Time> waitTimeList;
-        private List<Time> delayTimeList;
+        public int size() {
+            return size;
+        }
 
-        private int curSiteId; // current site id
+        public boolean isEmpty() {
+            return size == 0;
+        }
 
-        public Vehicle() {
-            this.id = 0;
-            this.startSite = 0;
-            this.startTime = new Date();
-            this.weight = 0;
-            this.endSite = 0;
-            this.driveTimeList = new ArrayList<>();
-            this.otherTimeList = new ArrayList<>();
-            this.breakTimeList = new ArrayList<>();
-            this.waitTimeList = new ArrayList<>();
-            this.delayTimeList = new ArrayList<>();
-            this.curSiteId = 0;
+        public byte getType(int i) {
+            return type[i];
         }
 
-        public Vehicle(long id, int startSite, Date startTime, int weight, int endSite,
-                       List<Time> driveTimeList, List<Time> otherTimeList, List<Time> breakTimeList,
-                       List<Time> waitTimeList, List<Time> delayTimeList, int curSiteId) {
-            this.id = id; // id equals to 'compartmentId'
-            this.startSite = startSite;
-            this.startTime = startTime;
-            this.weight = weight;
-            this.endSite = endSite;
-            this.driveTimeList = driveTimeList;
-            this.otherTimeList = otherTimeList;
-            this.breakTimeList = breakTimeList;
-            this.waitTimeList = waitTimeList;
-            this.delayTimeList = delayTimeList;
-            this.curSiteId = curSiteId; // default value is curSiteId, which would change during the route
+        public long getStart(int i) {
+            return start[i];
         }
 
-        public long getId() {
-            return id;
+        public long getEnd(int i) {
+            return start[i] + duration[i];
         }
 
-        public void setId(long id) {
-            this.id = id;
+        public long getDuration(int i) {
+            return duration[i];
         }
 
-        public int getStartSite() {
-            return startSite;
+        public int getDistance(int i) {
+            return distance[i];
         }
 
-        public void setStartSite(int startSite) {
-            this.startSite = startSite;
+        public long getCustomerId(int i) {
+            return customerId[i];
         }
 
-        public Date getStartTime() {
-            return startTime;
+        /* the job id of a collect/deliver node, or the type of the other nodes */
+        public String getJobId(int i) {
+            return type[i] == JOB ? jobId[i] : TYPES[type[i]];
         }
 
-        public void setStartTime(Date startTime) {
-            this.startTime = startTime;
+        /* customers with both a collect and a deliver node, that is the customers served by the vehicle */
+        public Set<Long> servedCustomers() {
+            Set<Long> collected = new HashSet<>(), delivered = new HashSet<>();
+            for (int i = 0; i < size; i++) {
+                if (type[i] != JOB) continue;
+                if (jobId[i].contains("C-")) collected.add(customerId[i]);
+                if (jobId[i].contains("D-")) delivered.add(customerId[i]);
+            }
+            collected.retainAll(delivered);
+            return collected;
         }
 
-        public int getWeight() {
-            return weight;
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("TimelineDto{size=").append(size).append(", nodes=[");
+            for (int i = 0; i < size; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(getJobId(i)).append('@').append(start[i]).append('+').append(duration[i]);
+            }
+            return sb.append("]}").toString();
         }
+    }
 
-        public void setWeight(int weight) {
-            this.weight = weight;
-        }
+    /**
+     * Vehicle DTO
+     */
+    protected static class Vehicle {
+        private long id; // vehicle identification number
+        private int startSite; // start site id
+        private Date startTime; // when vehicle starts working
+        private int weight; // weight of the vehicle
+        private int endSite; // destination id
 
-        public int getEndSite() {
-            return endSite;
-        }
+        private Timeline timeline; // time nodes for the output
 
-        public void setEndSite(int endSite) {
-            this.endSite = endSite;
+        private int curSiteId; // current site id
+
+        public Vehicle() {
+            this.id = 0;
+            this.startSite = 0;
+            this.startTime = new Date();
+            this.weight = 0;
+            this.endSite = 0;
+            this.timeline = new Timeline();
+            this.curSiteId = 0;
         }
 
-        public double getMContinuousDrivingInHours() {
-            return mContinuousDrivingInHours;
+        public Vehicle(long id, int startSite, Date startTime, int weight, int endSite,
+                       Timeline timeline, int curSiteId) {
+            this.id = id; // id equals to 'compartmentId'
+            this.startSite = startSite;
+            this.startTime = startTime;
+            this.weight = weight;
+            this.endSite = endSite;
+            this.timeline = timeline;
+            this.curSiteId = curSiteId; // default value is curSiteId, which would change during the route
         }
 
-        public int getmDailyDriveInHours() {
-            return mDailyDriveInHours;
+        public long getId() {
+            return id;
         }
 
-        public int getMDurationInHours() {
-            return mDurationInHours;
+        public void setId(long id) {
+            this.id = id;
         }
 
-        public void setDriveTimeList(List<Time> driveTimeList) {
-            this.driveTimeList = driveTimeList;
+        public int getStartSite() {
+            return startSite;
         }
 
-        public List<Time> getDriveTimeList() {
-            return driveTimeList;
+        public void setStartSite(int startSite) {
+            this.startSite = startSite;
         }
 
-        public void setOtherTimeList(List<Time> otherTimeList) {
-            this.otherTimeList = otherTimeList;
+        public Date getStartTime() {
+            return startTime;
         }
 
-        public List<Time> getOtherTimeList() {
-            return otherTimeList;
+        public void setStartTime(Date startTime) {
+            this.startTime = startTime;
         }
 
-        public void setBreakTimeList(List<Time> breakTimeList) {
-            this.breakTimeList = breakTimeList;
+        public int getWeight() {
+            return weight;
         }
 
-        public List<Time> getBreakTimeList() {
-            return breakTimeList;
+        public void setWeight(int weight) {
+            this.weight = weight;
         }
 
-        public void setWaitTimeList(List<Time> waitTimeList) {
-            this.waitTimeList = waitTimeList;
+        public int getEndSite() {
+            return endSite;
         }
 
-        public List<Time> getWaitTimeList() {
-            return waitTimeList;
+        public void setEndSite(int endSite) {
+            this.endSite = endSite;
         }
 
-        public void setDelayTimeList(List<Time> delayTimeList) {
-            this.delayTimeList = delayTimeList;
+        public void setTimeline(Timeline timeline) {
+            this.timeline = timeline;
         }
 
-        public List<Time> getDelayTimeList() {
-            return delayTimeList;
+        public Timeline getTimeline() {
+            return timeline;
         }
 
         public int getCurSiteId() {
@@ -2374,14 +3268,7 @@ public class AADS {
                     ", startTime='" + sdf.format(startTime) + '\'' +
                     ", weight=" + weight +
                     ", endSite='" + endSite + '\'' +
-                    ", mContinuousDrivingInHours=" + mContinuousDrivingInHours +
-                    ", mDailyDriveInHours=" + mDailyDriveInHours +
-                    ", mDurationInHours=" + mDurationInHours +
-                    ", driveTimeList='" + driveTimeList.toString() + '\'' +
-                    ", otherTimeList='" + otherTimeList.toString() + '\'' +
-                    ", breakTimeList='" + breakTimeList.toString() + '\'' +
-                    ", waitTimeList='" + waitTimeList.toString() + '\'' +
-                    ", delayTimeList='" + delayTimeList.toString() + '\'' +
+                    ", timeline='" + timeline.toString() + '\'' +
                     ", curSiteId=" + curSiteId +
                     "}\n";
         }
@@ -2393,25 +3280,15 @@ public class AADS {
     protected static class Site {
         private long id; // auto-increment site id(collect / deliver)
         private String[] coordinates; // coordinates of current site(collect / deliver)
-        private JSONArray disAndTime; // distance and time from current site to other sites
-
-        private static int next = 0; // auto-increment id
 
         public Site() {
             this.id = 0;
             this.coordinates = new String[]{};
-            this.disAndTime = new JSONArray();
-        }
-
-        public Site(String[] coordinates) { // used for creating graph
-            this.id = next++;
-            this.coordinates = coordinates;
         }
 
-        public Site(String[] coordinates, JSONArray disAndTime) {
-            this.id = next++;
+        public Site(SolveContext context, String[] coordinates) {
+            this.id = context.nextSiteId();
             this.coordinates = coordinates;
-            this.disAndTime = disAndTime;
         }
 
         public long getId() {
@@ -2426,28 +3303,12 @@ public class AADS {
             this.coordinates = coordinates;
         }
 
-        public JSONArray getDisAndTime() {
-            return disAndTime;
-        }
-
-        public void setDisAndTime(JSONArray disAndTime) {
-            this.disAndTime = disAndTime;
-        }
-
         @Override
         public String toString() {
-            if (disAndTime == null || disAndTime.isEmpty()) {
-                return "SiteDto{" +
-                        "id=" + id +
-                        ", coordinates=" + Arrays.toString(coordinates) +
-                        '}';
-            } else {
-                return "SiteDto{" +
-                        "id=" + id +
-                        ", coordinates=" + Arrays.toString(coordinates) +
-                        ", disAndTime=" + disAndTime.toString() +
-                        '}';
-            }
+            return "SiteDto{" +
+                    "id=" + id +
+                    ", coordinates=" + Arrays.toString(coordinates) +
+                    '}';
         }
     }
 
@@ -2468,8 +3329,6 @@ public class AADS {
         private boolean isDelivered; // whether is delivered
         private long routeId; // allocated route id
 
-        private static int next = 0; // auto-increment id
-
         public Customer() {
             this.id = 0;
             this.collectId = "";
@@ -2485,12 +3344,12 @@ public class AADS {
             this.routeId = -1;
         }
 
-        public Customer(String collectId, String deliverId,
+        public Customer(SolveContext context, String collectId, String deliverId,
                         Site collectSite, Site deliverSite,
                         Time collectTimeWindow, Time deliverTimeWindow,
                         long collectTimeinMinutes, long deliverTimeinMinutes,
                         int weight, boolean isDelivered, long routeId) {
-            this.id = next++;
+            this.id = context.nextCustomerId();
             this.collectId = collectId;
             this.deliverId = deliverId;
             this.collectSite = collectSite;
@@ -2616,6 +3475,188 @@ public class AADS {
         }
     }
 
+    /**
+     * Driving and duty limits of a regulation (unit: ms). A profile is one of the named presets, selected by
+     * -Daads.regulation (EU by default), with 'Configuration.MaxDutyTimeMins' and 'Configuration.MaxDriveTimeMins'
+     * of the input in place of the preset's limits when they are given
+     */
+    protected static class RegulationProfile {
+        private static final Map<String, RegulationProfile> PRESETS = new LinkedHashMap<>();
+
+        static {
+            // EU driving time rules, with the 13h duty left by a regular daily rest of 11h
+            PRESETS.put("EU", new RegulationProfile("EU", 270, 540, 780, 360, 540));
+            // daily driving extended to 10h (allowed twice a week)
+            PRESETS.put("EU-EXTENDED-DRIVE", new RegulationProfile("EU-EXTENDED-DRIVE", 270, 600, 780, 360, 540));
+            // duty spread to 15h by a reduced daily rest of 9h
+            PRESETS.put("EU-REDUCED-REST", new RegulationProfile("EU-REDUCED-REST", 270, 540, 900, 360, 540));
+        }
+
+        private final String name;
+        private final long maxContinuousDrive; // drive time before a break is needed
+        private final long maxDailyDrive; // drive time of a route
+        private final long maxDuty; // duration of a route
+        private final long dutyBreakFrom; // duty time from which a break is taken
+        private final long longDutyFrom; // duty time from which a longer break is needed
+        private int configuredDutyMins; // 'Configuration.MaxDutyTimeMins' of the input, 0 if not given
+        private int configuredDriveMins; // 'Configuration.MaxDriveTimeMins' of the input, 0 if not given
+
+        public RegulationProfile(String name, int maxContinuousDriveMins, int maxDailyDriveMins, int maxDutyMins,
+                                 int dutyBreakFromMins, int longDutyFromMins) {
+            this.name = name;
+            this.maxContinuousDrive = maxContinuousDriveMins * 60 * 1000L;
+            this.maxDailyDrive = maxDailyDriveMins * 60 * 1000L;
+            this.maxDuty = maxDutyMins * 60 * 1000L;
+            this.dutyBreakFrom = dutyBreakFromMins * 60 * 1000L;
+            this.longDutyFrom = longDutyFromMins * 60 * 1000L;
+        }
+
+        /* the preset of the name (ignoring case), with the duty and drive limits of the input when they are positive */
+        public static RegulationProfile of(String preset, int configuredDutyMins, int configuredDriveMins) {
+            RegulationProfile base = PRESETS.get(preset.toUpperCase(Locale.ROOT));
+            if (base == null) {
+                throw new IllegalArgumentException("Unknown regulation profile '" + preset + "', expected one of " + PRESETS.keySet() + ".");
+            }
+            RegulationProfile profile = new RegulationProfile(base.name,
+                    (int) (base.maxContinuousDrive / 60000),
+                    configuredDriveMins > 0 ? configuredDriveMins : (int) (base.maxDailyDrive / 60000),
+                    configuredDutyMins > 0 ? configuredDutyMins : (int) (base.maxDuty / 60000),
+                    (int) (base.dutyBreakFrom / 60000),
+                    (int) (base.longDutyFrom / 60000));
+            profile.configuredDutyMins = Math.max(configuredDutyMins, 0);
+            profile.configuredDriveMins = Math.max(configuredDriveMins, 0);
+            return profile;
+        }
+
+        /* the preset selected by -Daads.regulation, with the limits of 'Configuration' (may be null) */
+        public static RegulationProfile of(JSONObject configuration) {
+            return of(System.getProperty("aads.regulation", "EU"),
+                    minutes(configuration, "MaxDutyTimeMins"), minutes(configuration, "MaxDriveTimeMins"));
+        }
+
+        private static int minutes(JSONObject configuration, String key) {
+            Object value = configuration != null ? configuration.opt(key) : null;
+            if (value instanceof Number) return ((Number) value).intValue();
+            if (value instanceof String) return Integer.parseInt((String) value);
+            return 0;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getMaxContinuousDrive() {
+            return maxContinuousDrive;
+        }
+
+        public long getMaxDailyDrive() {
+            return maxDailyDrive;
+        }
+
+        public long getMaxDuty() {
+            return maxDuty;
+        }
+
+        public long getDutyBreakFrom() {
+            return dutyBreakFrom;
+        }
+
+        public long getLongDutyFrom() {
+            return longDutyFrom;
+        }
+
+        public int getConfiguredDutyMins() {
+            return configuredDutyMins;
+        }
+
+        public int getConfiguredDriveMins() {
+            return configuredDriveMins;
+        }
+
+        @Override
+        public String toString() {
+            return "RegulationProfileDto{" +
+                    "name='" + name + '\'' +
+                    ", maxContinuousDrive=" + maxContinuousDrive / 60000 + "min" +
+                    ", maxDailyDrive=" + maxDailyDrive / 60000 + "min" +
+                    ", maxDuty=" + maxDuty / 60000 + "min" +
+                    ", dutyBreakFrom=" + dutyBreakFrom / 60000 + "min" +
+                    ", longDutyFrom=" + longDutyFrom / 60000 + "min" +
+                    '}';
+        }
+    }
+
+    /**
+     * Break state of a route while its jobs are scheduled, kept in primitives so that the probes can reuse it.
+     * step() applies the break rules of the regulation profile after a job and moves the state forward in place:
+     * 1) a 15min and a 30min break after the continuous drive limit (4.5h in EU), unless 45min have been taken
+     * 2) a 45min break whenever the duty time is between 6h and 9h
+     * 3) a 45min break after a duty time of 9h, unless 45min have been taken
+     * the drive time restarts after any break
+     */
+    protected static class BreakState {
+        protected static final long MIN_BREAK = 45 * 60 * 1000; // break needed after the drive limit or a long duty
+
+        RegulationProfile profile; // limits the rules are checked against
+        long curTime; // current time, breaks start from here
+        long breakTime; // accumulated break time
+        long driveTime; // drive time since the last break
+        long otherTime; // accumulated collect/deliver time
+
+        int breaks; // number of breaks taken by the last step
+        final long[] breakStart = new long[4]; // start of each break taken by the last step
+        final long[] breakDuration = new long[4]; // duration of each break taken by the last step
+
+        public BreakState reset(RegulationProfile profile, long curTime, long breakTime, long driveTime, long otherTime) {
+            this.profile = profile;
+            this.curTime = curTime;
+            this.breakTime = breakTime;
+            this.driveTime = driveTime;
+            this.otherTime = otherTime;
+            this.breaks = 0;
+            return this;
+        }
+
+        /* apply the break rules after a job, rules 2) and 3) are checked against the given duty time */
+        public void step(long overallDuration) {
+            breaks = 0;
+            // 1. break at least 45min after driving 4.5h (two separated breaks)
+            if (driveTime >= profile.getMaxContinuousDrive() && breakTime < MIN_BREAK) {
+                take(15 * 60 * 1000);
+                take(30 * 60 * 1000);
+            }
+            // 2. break 30min after working between 6h and 9h (here we break 45min)
+            if (overallDuration >= profile.getDutyBreakFrom() && overallDuration < profile.getLongDutyFrom()) {
+                take(MIN_BREAK);
+            }
+            // 3. break 45min after working over 9h
+            if (overallDuration >= profile.getLongDutyFrom() && breakTime < MIN_BREAK) {
+                take(MIN_BREAK);
+            }
+            // 4. reset the drive time
+            if (breaks > 0) driveTime = 0;
+        }
+
+        private void take(long duration) {
+            breakStart[breaks] = curTime;
+            breakDuration[breaks] = duration;
+            breaks++;
+            breakTime += duration;
+            curTime += duration;
+        }
+
+        @Override
+        public String toString() {
+            return "BreakStateDto{" +
+                    "curTime=" + curTime +
+                    ", breakTime=" + breakTime +
+                    ", driveTime=" + driveTime +
+                    ", otherTime=" + otherTime +
+                    ", breaks=" + breaks +
+                    '}';
+        }
+    }
+
     /**
      * Route(gene) DTO
      */
@@ -2631,9 +3672,31 @@ public class AADS {
         private long overallBreak; // overall break time
         private int randN; // randomly obtained vehicle index
 
-        private Map<Long, Customer> pairMap; // pairing for collect and delivery
+        private static final Tuple<Boolean, GlobalData> REJECTED = new InnerTuple<>(false, new GlobalData()); // result of a failed probe
 
-        private static int next = 0; // auto-increment id
+        private Map<Long, Customer> pairMap; // pairing for collect and delivery
+        private SolveContext context; // id context of the solve, used for creating time nodes
+
+        /* positions of the customers in the route, extended as customers are appended, for O(1) precedence checks */
+        private final Map<Long, Integer> firstIndex = new HashMap<>(); // customer id -> first index in the customer list
+        private final Map<Long, Integer> firstDeliverIndex = new HashMap<>(); // deliver site id -> first index of a customer delivered there
+        private List<Customer> indexedCustomers; // customer list the positions are taken from
+        private int indexedSize; // number of customers indexed
+
+        private List<Customer> stops; // collect and deliver stops in visiting order, the first stop of a customer is its collect
+        /* schedule of the stops without breaks for scoring insertions, index 0 is the start of the vehicle and index k the k-th stop */
+        private int scheduledStops = -1; // number of stops scheduled, -1 if the schedule is out of date
+        private int[] stopSite = new int[0]; // site of the stop
+        private long[] stopStart = new long[0]; // start of the service
+        private long[] stopDepart = new long[0]; // end of the service
+        private long[] stopWait = new long[0]; // waiting for the time window to open
+        private long[] stopEarly = new long[0]; // window start - service start, the most a stop can be pulled earlier (<= 0)
+        private long[] stopRoom = new long[0]; // window end - service start
+        private long[] stopSlack = new long[0]; // forward time slack, the most a stop can be pushed later without violating a window
+        private long[] waitAfter = new long[0]; // waiting from the stop to the end of the route
+        private long[] pullAfter = new long[0]; // least shift of the end of the route caused by the stops from here
+        private int insertCollectPos = -1, insertDeliverPos = -1; // best positions found by bestInsertion()
+        private long appendCost = Long.MAX_VALUE; // cost of appending found by bestInsertion()
 
         public Route() {
             this.id = 0;
@@ -2647,13 +3710,15 @@ public class AADS {
             this.overallBreak = 0;
             this.randN = 0;
             this.pairMap = new HashMap<>();
+            this.stops = new ArrayList<>();
         }
 
-        public Route(Vehicle vehicle, List<Customer> customers,
+        public Route(SolveContext context, Vehicle vehicle, List<Customer> customers,
                      Date startTime, Date endTime,
                      long overallDuration, int overallDistance,
                      int overallWeight, int overallBreak, int randN, Map<Long, Customer> pairMap) {
-            this.id = next++;
+            this.id = context.nextRouteId();
+            this.context = context;
             this.vehicle = vehicle;
             this.customers = customers;
             this.startTime = startTime;
@@ -2664,6 +3729,7 @@ public class AADS {
             this.overallBreak = overallBreak;
             this.randN = randN;
             this.pairMap = pairMap;
+            this.stops = new ArrayList<>();
         }
 
         public long getId() {
@@ -2680,6 +3746,19 @@ public class AADS {
 
         public void setCustomers(List<Customer> customers) {
             this.customers = customers;
+            this.indexedCustomers = null; // the list may have been changed, index it again
+            // keep the stops of the remaining customers
+            Set<Long> ids = new HashSet<>();
+            if (customers != null) {
+                for (Customer customer : customers) ids.add(customer.getId());
+            }
+            stops.removeIf(stop -> !ids.contains(stop.getId()));
+            scheduledStops = -1;
+            if (ids.isEmpty()) { // the route starts again
+                routeBreakTime = 0;
+                routeDriveTime = 0;
+                routeOtherTime = 0;
+            }
         }
 
         public List<Customer> getCustomers() {
@@ -2750,6 +3829,14 @@ public class AADS {
             return pairMap;
         }
 
+        public List<Customer> getStops() {
+            return stops;
+        }
+
+        public long getAppendCost() {
+            return appendCost;
+        }
+
         @Override
         public String toString() {
             SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
@@ -2768,143 +3855,97 @@ public class AADS {
         }
 
         /**
-         * determine whether it needs a break, return a list containing updated breakTime and driveTime
+         * take the breaks required after a job, and stage a time node for each of them
          */
-        protected List<Long> needBreaks(long startTime, long overallDuration, long breakTime,
-                                        long otherTime, long driveTime, Customer customer) {
-            List<Long> res = new ArrayList<>();
-            boolean flag = false; // check whether it needs resetting the drive time
-
-            // 1. break at least 45min after driving 4.5h (two separated breaks)
-            if (driveTime >= 4.5 * 60 * 60 * 1000) {
-                if (breakTime < 45 * 60 * 1000) {
-                    breakTime += 15 * 60 * 1000; // take a 15-minute-break
-                    createTimeNode(getVehicle(),
-                            startTime,
-                            15 * 60 * 1000,
-                            "break",
-                            0,
-                            customer.getId(),
-                            "temp"); // create time node
-                    startTime += 15 * 60 * 1000; // for update
-                    breakTime += 30 * 60 * 1000; // then, take a 30-minute-break
-                    createTimeNode(getVehicle(),
-                            startTime,
-                            30 * 60 * 1000,
-                            "break",
-                            0,
-                            customer.getId(),
-                            "temp"); // create time node
-                    startTime += 30 * 60 * 1000; // for update
-                    flag = true;
-                }
+        protected void takeBreaks(BreakState state, long overallDuration, Customer customer) {
+            state.step(overallDuration);
+            for (int i = 0; i < state.breaks; i++) {
+                stageTimeNode(state.breakStart[i], state.breakDuration[i], "break", 0, customer.getId()); // stage time node
             }
-            // 2. break 30min after working between 6h and 9h (here we break 45min)
-            if (overallDuration >= 6 * 60 * 60 * 1000 && overallDuration < 9 * 60 * 60 * 1000) {
-                breakTime += 45 * 60 * 1000;
-                createTimeNode(getVehicle(),
-                        startTime,
-                        45 * 60 * 1000,
-                        "break",
-                        0,
-                        customer.getId(),
-                        "temp"); // create time node
-                startTime += 45 * 60 * 1000; // for update
-                flag = true;
+        }
+
+        /* whether the duty limit is already exceeded, the time only grows so the rest of a probe can be skipped */
+        private boolean overDuty(BreakState state, PreProcessData data) {
+            return state.curTime - getVehicle().getStartTime().getTime() > data.getRegulation().getMaxDuty();
+        }
+
+        /* whether the vehicle can still return to its end site from the site within the duty and drive limits */
+        private boolean canReturn(PreProcessData data, long curTime, int site, long dailyDriveTime) {
+            long returnTime = data.getReturnTimes(getVehicle().getEndSite())[site] * 1000L;
+            RegulationProfile regulation = data.getRegulation();
+            return curTime + returnTime - getVehicle().getStartTime().getTime() <= regulation.getMaxDuty()
+                    && dailyDriveTime + returnTime <= regulation.getMaxDailyDrive();
+        }
+
+        /**
+         * index the customers appended since the last call, or all of them if the customer list has been replaced
+         */
+        private void indexCustomers() {
+            if (indexedCustomers != customers || indexedSize > customers.size()) {
+                firstIndex.clear();
+                firstDeliverIndex.clear();
+                indexedCustomers = customers;
+                indexedSize = 0;
             }
-            // 3. break 45min after working over 9h
-            if (overallDuration >= 9 * 60 * 60 * 1000) {
-                if (breakTime < 45 * 60 * 1000) {
-                    breakTime += 45 * 60 * 1000;
-                    createTimeNode(getVehicle(),
-                            startTime,
-                            45 * 60 * 1000,
-                            "break",
-                            0,
-                            customer.getId(),
-                            "temp"); // create time node
-                    startTime += 45 * 60 * 1000; // for update
-                    flag = true;
-                }
+            for (; indexedSize < customers.size(); indexedSize++) {
+                Customer customer = customers.get(indexedSize);
+                firstIndex.putIfAbsent(customer.getId(), indexedSize);
+                firstDeliverIndex.putIfAbsent(customer.getDeliverSite().getId(), indexedSize);
             }
-            // 4. reset the drive time
-            if (flag) driveTime = 0;
-            // 5. return updated data
-            res.add(breakTime); // first item
-            res.add(driveTime); // second item
-            res.add(startTime); // third item(start time as next job out of this function)
-            res.add(otherTime); // fourth item
-            return res;
         }
 
-        private List<Time> tmpTimeList = new ArrayList<>(); // temporarily store time node for collect
+        /**
+         * check whether another customer before the given customer in the route is delivered to the site
+         */
+        private boolean isDeliveredBefore(long siteId, Customer customer) {
+            indexCustomers();
+            Integer idx = firstIndex.get(customer.getId()); // null if the customer is not in the route
+            Integer deliverIdx = firstDeliverIndex.get(siteId);
+            return idx != null && deliverIdx != null && deliverIdx < idx;
+        }
+
+        /* time nodes of the last probe of the route, kept as primitives until the customer is added */
+        private int stagedSize;
+        private long[] stagedStart = new long[16];
+        private long[] stagedDuration = new long[16];
+        private String[] stagedType = new String[16]; // drive/break/wait/delay or the collect/deliver job id
+        private int[] stagedDistance = new int[16];
+        private long[] stagedCustomer = new long[16];
+
+        /* break state of the route since the last delivery, continued by the next probe */
+        private long routeBreakTime, routeDriveTime, routeOtherTime;
+        private final BreakState breakState = new BreakState(); // reused by the probes of the route
 
         /**
-         * create a time node for the output
+         * stage a time node of the probe, nothing is allocated once the arrays are large enough
          */
-        public void createTimeNode(Vehicle vehicle, long startTime, long duration, String type,
-                                   int distance, long customerId, String controlType) {
-            if (vehicle != null) {
-                Date start = new Date(startTime);
-                Date end = new Date(startTime + duration);
-
-                if (controlType.equals("temp")) {
-                    // store in the tmpTimeList temporarily, until the customer can be added eventually
-                    if (type.equals("drive")) {
-                        // create Time DTO and input the whole vehicle entity
-                        Time time = new Time(start, end, duration, "drive", distance, vehicle, customerId);
-                        tmpTimeList.add(time);
-                    } else if (type.equals("break")) {
-                        Time time = new Time(start, end, duration, "break", distance, vehicle, customerId);
-                        tmpTimeList.add(time);
-                    } else if (type.equals("wait")) {
-                        Time time = new Time(start, end, duration, "wait", distance, vehicle, customerId);
-                        tmpTimeList.add(time);
-                    } else if (type.equals("delay")) {
-                        Time time = new Time(start, end, duration, "delay", distance, vehicle, customerId);
-                        tmpTimeList.add(time);
-                    } else if (type.equals("return")) { // return to the depot
-                        Time time = new Time(start, end, duration, "return", distance, vehicle, customerId);
-                        tmpTimeList.add(time);
-                    } else { // collect/deliver
-                        Time time = new Time(start, end, duration, type, distance, vehicle, customerId);
-                        tmpTimeList.add(time);
-                    }
-                } else if (controlType.equals("create")) { // eventually, we can create the time nodes
-                    if (type.equals("drive")) {
-                        // create Time DTO and input the vehicle id
-                        Time time = new Time(start, end, duration, "drive", distance, vehicle.getId(), customerId);
-                        List<Time> driveList = vehicle.getDriveTimeList();
-                        driveList.add(time);
-                        vehicle.setDriveTimeList(driveList);
-                    } else if (type.equals("break")) {
-                        Time time = new Time(start, end, duration, "break", distance, vehicle.getId(), customerId);
-                        List<Time> breakList = vehicle.getBreakTimeList();
-                        breakList.add(time);
-                        vehicle.setBreakTimeList(breakList);
-                    } else if (type.equals("wait")) {
-                        Time time = new Time(start, end, duration, "wait", distance, vehicle.getId(), customerId);
-                        List<Time> waitList = vehicle.getWaitTimeList();
-                        waitList.add(time);
-                        vehicle.setWaitTimeList(waitList);
-                    } else if (type.equals("delay")) {
-                        Time time = new Time(start, end, duration, "delay", distance, vehicle.getId(), customerId);
-                        List<Time> delayList = vehicle.getDelayTimeList();
-                        delayList.add(time);
-                        vehicle.setDelayTimeList(delayList);
-                    } else if (type.equals("return")) { // return to the depot
-                        Time time = new Time(start, end, duration, "return", distance, vehicle.getId(), customerId);
-                        List<Time> driveList = vehicle.getDriveTimeList(); // store in the driveList
-                        driveList.add(time);
-                        vehicle.setDriveTimeList(driveList);
-                    } else { // collect/deliver
-                        Time time = new Time(start, end, duration, type, distance, vehicle.getId(), customerId);
-                        List<Time> otherList = vehicle.getOtherTimeList();
-                        otherList.add(time);
-                        vehicle.setOtherTimeList(otherList);
-                    }
-                }
+        private void stageTimeNode(long startTime, long duration, String type, int distance, long customerId) {
+            if (stagedSize == stagedStart.length) {
+                int capacity = stagedSize * 2;
+                stagedStart = Arrays.copyOf(stagedStart, capacity);
+                stagedDuration = Arrays.copyOf(stagedDuration, capacity);
+                stagedType = Arrays.copyOf(stagedType, capacity);
+                stagedDistance = Arrays.copyOf(stagedDistance, capacity);
+                stagedCustomer = Arrays.copyOf(stagedCustomer, capacity);
+            }
+            stagedStart[stagedSize] = startTime;
+            stagedDuration[stagedSize] = duration;
+            stagedType[stagedSize] = type;
+            stagedDistance[stagedSize] = distance;
+            stagedCustomer[stagedSize] = customerId;
+            stagedSize++;
+        }
+
+        /**
+         * create the time nodes staged by the last probe
+         */
+        private void createStagedTimeNodes() {
+            Timeline timeline = getVehicle().getTimeline();
+            for (int i = 0; i < stagedSize; i++) {
+                timeline.add(stagedType[i], stagedStart[i], stagedDuration[i], stagedDistance[i], stagedCustomer[i]);
+                stagedType[i] = null;
             }
+            stagedSize = 0;
         }
 
         public Tuple<Boolean, GlobalData> canAddACustomerBySeparation(Customer customer, PreProcessData data,
@@ -2912,28 +3953,21 @@ public class AADS {
             long dailyDriveTime = 0; // daily accumulated drive time
             int totalDistance = 0; // daily accumulated drive distance
             InnerTuple<Boolean, GlobalData> res;
+            stagedSize = 0; // drop the time nodes of the previous probe
 
             if (customer != null) {
                 // 1. each requested collect site must be visited before the corresponding delivery site
                 if (collectFirst) { // collect
-                    for (Customer otherCustomer : getCustomers()) { // collected but not delivered
-                        if (otherCustomer.getDeliverSite().getId() == customer.getCollectSite().getId()) {
-                            if (getCustomers().indexOf(otherCustomer) < getCustomers().indexOf(customer)) {
-//                                System.out.println("The customer " + customer.getId() + " should meet the precedence constraints: " +
-//                                        "the collect site must be the predecessor of the delivered site.");
-                                return new InnerTuple<>(false, new GlobalData());
-                            }
-                        }
+                    if (isDeliveredBefore(customer.getCollectSite().getId(), customer)) { // collected but not delivered
+//                        System.out.println("The customer " + customer.getId() + " should meet the precedence constraints: " +
+//                                "the collect site must be the predecessor of the delivered site.");
+                        return REJECTED;
                     }
                 } else { // deliver
-                    for (Customer otherCustomer : getCustomers()) { // it has been delivered
-                        if (otherCustomer.getDeliverSite().getId() == customer.getDeliverSite().getId()) {
-                            if (getCustomers().indexOf(otherCustomer) < getCustomers().indexOf(customer)) {
-//                                System.out.println("The customer " + customer.getId() + " should meet the precedence constraints: " +
-//                                        "the collect site must be the predecessor of the delivered site.");
-                                return new InnerTuple<>(false, new GlobalData());
-                            }
-                        }
+                    if (isDeliveredBefore(customer.getDeliverSite().getId(), customer)) { // it has been delivered
+//                        System.out.println("The customer " + customer.getId() + " should meet the precedence constraints: " +
+//                                "the collect site must be the predecessor of the delivered site.");
+                        return REJECTED;
                     }
                 }
 
@@ -2942,16 +3976,18 @@ public class AADS {
                         && (getOverallWeight() + customer.getWeight() > getVehicle().getWeight())) {
 //                    System.out.println("The capacity of vehicle " + getVehicle().getId() +
 //                            " is full and new customers cannot be added.");
-                    return new InnerTuple<>(false, new GlobalData());
+                    return REJECTED;
                 }
 
                 // 3. vehicle must arrive within the collect time window (if earlier, wait; if later, reject the customer)
-                long curTime;
+                BreakState state = breakState.reset(data.getRegulation(), 0,
+                        routeBreakTime, routeDriveTime, routeOtherTime); // break state of the probe
                 if (!getCustomers().isEmpty()) {
-                    curTime = (getVehicle().getStartTime()).getTime() + getOverallDuration(); // total time of the previous customer
+                    state.curTime = (getVehicle().getStartTime()).getTime() + getOverallDuration(); // total time of the previous customer
                 } else {
-                    curTime = (getVehicle().getStartTime()).getTime(); // vehicle's start time
+                    state.curTime = (getVehicle().getStartTime()).getTime(); // vehicle's start time
                 }
+                if (overDuty(state, data)) return REJECTED; // the route has no duty time left
 
                 // get the start time of current vehicle
                 Date date = data.getOverallDeliverTime();
@@ -2960,444 +3996,290 @@ public class AADS {
                 long vehicleStartTime = (getVehicle().getStartTime()).getTime();
 
                 // obtain current route's accumulated break time, other work time and drive time
-                long breakTime = data.getBreakTime(),
-                        otherTime = data.getOtherTime(),
-                        driveTime = data.getDriveTime();
 
                 // 4. collect
                 if (collectFirst) {
                     // obtain start site and collect site
-                    Site startSite = data.getLocationList().get(getVehicle().getCurSiteId()); // each customer starts from the current site
-                    Site collectSite = data.getLocationList().get((int) customer.getCollectSite().getId());
+                    Site startSite = data.getSite(getVehicle().getCurSiteId()); // each customer starts from the current site
+                    Site collectSite = data.getSite((int) customer.getCollectSite().getId());
 
                     // check whether the start site is the collect site
                     if (startSite == collectSite) {
                         // if the vehicle do not need to drive to the collect site
-                        long tmp = curTime; // record the current time before update operation
-                        if (curTime >= customer.getCollectTimeWindow().getStart().getTime()
-                                && curTime <= customer.getCollectTimeWindow().getEnd().getTime()) {
+                        long tmp = state.curTime; // record the current time before update operation
+                        if (state.curTime >= customer.getCollectTimeWindow().getStart().getTime()
+                                && state.curTime <= customer.getCollectTimeWindow().getEnd().getTime()) {
                             // current time is within the time window, directly collect customers and then compute the time consumed
-                            otherTime += customer.getCollectTimeinMinutes() * 60 * 1000;
-                            curTime += customer.getCollectTimeinMinutes() * 60 * 1000;
-                            createTimeNode(getVehicle(),
-                                    tmp,
+                            state.otherTime += customer.getCollectTimeinMinutes() * 60 * 1000;
+                            state.curTime += customer.getCollectTimeinMinutes() * 60 * 1000;
+                            stageTimeNode(tmp,
                                     customer.getCollectTimeinMinutes() * 60 * 1000,
                                     customer.getCollectId(),
                                     0,
-                                    customer.getId(),
-                                    "temp"); // temporarily create time node
-                            List<Long> breakResult = needBreaks(curTime,
-                                    curTime - tmp,
-                                    breakTime, otherTime, driveTime, customer); // check whether a break is need
-                            if (!breakResult.isEmpty()) {
-                                breakTime = breakResult.get(0);
-                                driveTime = breakResult.get(1);
-                                curTime = breakResult.get(2);
-                                otherTime = breakResult.get(3);
-                            }
-                        } else if (curTime < customer.getCollectTimeWindow().getStart().getTime()) {
+                                    customer.getId()); // stage time node
+                            takeBreaks(state, state.curTime - tmp, customer); // check whether a break is need
+                        } else if (state.curTime < customer.getCollectTimeWindow().getStart().getTime()) {
                             // need to wait until the collect window opens, then add the time waiting for the window to open
-                            long wait = Math.abs(customer.getCollectTimeWindow().getStart().getTime() - curTime);
-                            curTime += wait;
-                            createTimeNode(getVehicle(),
-                                    tmp,
+                            long wait = Math.abs(customer.getCollectTimeWindow().getStart().getTime() - state.curTime);
+                            state.curTime += wait;
+                            stageTimeNode(tmp,
                                     wait,
                                     "wait",
                                     0,
-                                    customer.getId(),
-                                    "temp"); // temporarily create time node
-                            otherTime += customer.getCollectTimeinMinutes() * 60 * 1000;
-                            curTime += customer.getCollectTimeinMinutes() * 60 * 1000;
-                            createTimeNode(getVehicle(),
-                                    tmp
+                                    customer.getId()); // stage time node
+                            state.otherTime += customer.getCollectTimeinMinutes() * 60 * 1000;
+                            state.curTime += customer.getCollectTimeinMinutes() * 60 * 1000;
+                            stageTimeNode(tmp
                                             + wait,
                                     customer.getCollectTimeinMinutes() * 60 * 1000,
                                     customer.getCollectId(),
                                     0,
-                                    customer.getId(),
-                                    "temp"); // temporarily create time node
-                            List<Long> breakResult = needBreaks(curTime,
-                                    curTime - tmp,
-                                    breakTime, otherTime, driveTime, customer); // check whether a break is need
-                            if (!breakResult.isEmpty()) {
-                                breakTime = breakResult.get(0);
-                                driveTime = breakResult.get(1);
-                                curTime = breakResult.get(2);
-                                otherTime = breakResult.get(3);
-                            }
+                                    customer.getId()); // stage time node
+                            takeBreaks(state, state.curTime - tmp, customer); // check whether a break is need
                         } else {
                             // not meet the time window constraint
-                            return new InnerTuple<>(false, new GlobalData());
+                            return REJECTED;
                         }
                     } else {
-                        JSONArray arr = new JSONArray((String) startSite.getDisAndTime().toList().get((int) collectSite.getId()));
-                        long collectRouteTime = ((Integer) arr.opt(1)).longValue(); // time from start site to collect site
-                        int collectRouteDistance = (Integer) arr.opt(0); // distance between start site and collect site
-                        long tmp = curTime; // record the current time before update operation
+                        long collectRouteTime = data.getTravelTime((int) startSite.getId(), (int) collectSite.getId()); // time from start site to collect site
+                        int collectRouteDistance = data.getDistance((int) startSite.getId(), (int) collectSite.getId()); // distance between start site and collect site
+                        long tmp = state.curTime; // record the current time before update operation
 
-                        if ((curTime + collectRouteTime * 1000)
+                        if ((state.curTime + collectRouteTime * 1000)
                                 >= customer.getCollectTimeWindow().getStart().getTime()
-                                && (curTime + collectRouteTime * 1000)
+                                && (state.curTime + collectRouteTime * 1000)
                                 <= customer.getCollectTimeWindow().getEnd().getTime()) {
                             // drive to the collect site to collect
-                            driveTime += collectRouteTime * 1000;
-                            curTime += collectRouteTime * 1000;
+                            state.driveTime += collectRouteTime * 1000;
+                            state.curTime += collectRouteTime * 1000;
                             dailyDriveTime += collectRouteTime * 1000; // update
                             totalDistance += collectRouteDistance;
-                            createTimeNode(getVehicle(),
-                                    tmp,
+                            stageTimeNode(tmp,
                                     collectRouteTime * 1000,
                                     "drive",
                                     collectRouteDistance,
-                                    customer.getId(),
-                                    "temp"); // temporarily create time node
-                            List<Long> breakResult = needBreaks(curTime,
-                                    curTime - tmp,
-                                    breakTime, otherTime, driveTime, customer); // check whether a break is need
-                            if (!breakResult.isEmpty()) {
-                                breakTime = breakResult.get(0);
-                                driveTime = breakResult.get(1);
-                                curTime = breakResult.get(2);
-                                otherTime = breakResult.get(3);
+                                    customer.getId()); // stage time node
+                            takeBreaks(state, state.curTime - tmp, customer); // check whether a break is need
+                            if (state.curTime > customer.getCollectTimeWindow().getEnd().getTime()) {
+                                // a break taken on arrival has pushed the service past the time window
+                                return REJECTED;
                             }
-                            otherTime += customer.getCollectTimeinMinutes() * 60 * 1000;
-                            curTime += customer.getCollectTimeinMinutes() * 60 * 1000;
-                            createTimeNode(getVehicle(),
-                                    tmp + collectRouteTime * 1000,
+                            stageTimeNode(state.curTime,
                                     customer.getCollectTimeinMinutes() * 60 * 1000,
                                     customer.getCollectId(),
                                     0,
-                                    customer.getId(),
-                                    "temp"); // temporarily create time node
-                            breakResult = needBreaks(curTime,
-                                    curTime - tmp,
-                                    breakTime, otherTime, driveTime, customer); // check whether a break is need
-                            if (!breakResult.isEmpty()) {
-                                breakTime = breakResult.get(0);
-                                driveTime = breakResult.get(1);
-                                curTime = breakResult.get(2);
-                                otherTime = breakResult.get(3);
-                            }
-                        } else if ((curTime + collectRouteTime * 1000)
+                                    customer.getId()); // stage time node
+                            state.otherTime += customer.getCollectTimeinMinutes() * 60 * 1000;
+                            state.curTime += customer.getCollectTimeinMinutes() * 60 * 1000;
+                            takeBreaks(state, state.curTime - tmp, customer); // check whether a break is need
+                        } else if ((state.curTime + collectRouteTime * 1000)
                                 < customer.getCollectTimeWindow().getStart().getTime()) {
                             // need to wait until the collect window opens, then add the time waiting for the window to open
-                            long wait = Math.abs(customer.getCollectTimeWindow().getStart().getTime() - (curTime + collectRouteTime * 1000));
-                            curTime += wait;
-                            createTimeNode(getVehicle(),
-                                    tmp,
+                            long wait = Math.abs(customer.getCollectTimeWindow().getStart().getTime() - (state.curTime + collectRouteTime * 1000));
+                            state.curTime += wait;
+                            stageTimeNode(tmp,
                                     wait,
                                     "wait",
                                     0,
-                                    customer.getId(),
-                                    "temp"); // temporarily create time node
-                            driveTime += collectRouteTime * 1000;
-                            curTime += collectRouteTime * 1000;
+                                    customer.getId()); // stage time node
+                            state.driveTime += collectRouteTime * 1000;
+                            state.curTime += collectRouteTime * 1000;
                             dailyDriveTime += collectRouteTime * 1000; // update
                             totalDistance += collectRouteDistance;
-                            createTimeNode(getVehicle(),
-                                    tmp
+                            stageTimeNode(tmp
                                             + wait,
                                     collectRouteTime * 1000,
                                     "drive",
                                     collectRouteDistance,
-                                    customer.getId(),
-                                    "temp"); // temporarily create time node
-                            List<Long> breakResult = needBreaks(curTime,
-                                    curTime - tmp,
-                                    breakTime, otherTime, driveTime, customer); // check whether a break is need
-                            if (!breakResult.isEmpty()) {
-                                breakTime = breakResult.get(0);
-                                driveTime = breakResult.get(1);
-                                curTime = breakResult.get(2);
-                                otherTime = breakResult.get(3);
+                                    customer.getId()); // stage time node
+                            takeBreaks(state, state.curTime - tmp, customer); // check whether a break is need
+                            if (state.curTime > customer.getCollectTimeWindow().getEnd().getTime()) {
+                                // a break taken on arrival has pushed the service past the time window
+                                return REJECTED;
                             }
-                            otherTime += customer.getCollectTimeinMinutes() * 60 * 1000;
-                            curTime += customer.getCollectTimeinMinutes() * 60 * 1000;
-                            createTimeNode(getVehicle(),
-                                    tmp
-                                            + wait
-                                            + collectRouteTime * 1000,
+                            stageTimeNode(state.curTime,
                                     customer.getCollectTimeinMinutes() * 60 * 1000,
                                     customer.getCollectId(),
                                     0,
-                                    customer.getId(),
-                                    "temp"); // temporarily create time node
-                            breakResult = needBreaks(curTime,
-                                    curTime - tmp,
-                                    breakTime, otherTime, driveTime, customer); // check whether a break is need
-                            if (!breakResult.isEmpty()) {
-                                breakTime = breakResult.get(0);
-                                driveTime = breakResult.get(1);
-                                curTime = breakResult.get(2);
-                                otherTime = breakResult.get(3);
-                            }
+                                    customer.getId()); // stage time node
+                            state.otherTime += customer.getCollectTimeinMinutes() * 60 * 1000;
+                            state.curTime += customer.getCollectTimeinMinutes() * 60 * 1000;
+                            takeBreaks(state, state.curTime - tmp, customer); // check whether a break is need
                         } else {
                             // not meet the time window constraint
-                            return new InnerTuple<>(false, new GlobalData());
+                            return REJECTED;
                         }
                     }
 
-                    // set data to the global data 'data'
-                    Date overallCollectTime = new Date(curTime);
+                    if (overDuty(state, data)) return REJECTED; // the delivery would exceed the duty time anyway
 
-                    GlobalData globalData = new GlobalData(
-                            curTime - (getVehicle().getStartTime()).getTime(),
-                            data.getLocationList().get((int) customer.getCollectSite().getId()),
-                            breakTime, overallCollectTime,
+                    // set data to the globalData, the route and the global 'data' are only updated by addACustomer()
+                    Date overallCollectTime = new Date(state.curTime);
+
+                    GlobalData globalData = new GlobalData(data.getContext(),
+                            state.curTime - (getVehicle().getStartTime()).getTime(),
+                            data.getSite((int) customer.getCollectSite().getId()),
+                            state.breakTime, overallCollectTime,
                             getId(), customer.getId(),
                             dailyDriveTime, totalDistance);
+                    globalData.setDriveTime(state.driveTime);
+                    globalData.setOtherTime(state.otherTime);
                     res = new InnerTuple<>(true, globalData);
-                    data.setCurTime(curTime - (getVehicle().getStartTime()).getTime());
-                    data.setDeliverSite(data.getLocationList().get((int) customer.getCollectSite().getId()));
-                    data.setOverallDeliverTime(overallCollectTime);
-
-                    // set breakTime, driveTime and otherTime
-                    data.setBreakTime(breakTime);
-                    data.setDriveTime(driveTime);
-                    data.setOtherTime(otherTime);
-
-                    // add current customer into the assignedCustomer
-                    List<Customer> customerList = assignedCustomer.get(getId());
-                    if (customerList != null) { // add directly
-                        customerList.add(customer);
-                        assignedCustomer.put(getId(), customerList);
-                    } else { // create a new list and then add the customer
-                        List<Customer> newList = new ArrayList<>();
-                        newList.add(customer);
-                        assignedCustomer.put(getId(), newList);
-                    }
                     return res;
                 }
 
                 // 5. after collecting every customer or during the delivery period, checking the time consumed on delivery
-                Date overallDeliverTime = new Date();
-                Site deliverSite = new Site();
+                Date overallDeliverTime = null;
+                Site deliverSite = null;
                 if (!collectFirst || (collectFirst && getCustomers().size() == data.getCustomerList().size())) {
-                    Site startSite = data.getLocationList().get(getVehicle().getCurSiteId());
-                    deliverSite = data.getLocationList().get((int) customer.getDeliverSite().getId()); // deliver site
+                    Site startSite = data.getSite(getVehicle().getCurSiteId());
+                    deliverSite = data.getSite((int) customer.getDeliverSite().getId()); // deliver site
 
                     if (startSite != deliverSite) {
                         // vehicle should drive to the delivery site and then compute the time consumed
-                        JSONArray arr = new JSONArray((String) startSite.getDisAndTime().toList().get((int) deliverSite.getId()));
-                        long deliverRouteTime = ((Integer) arr.opt(1)).longValue(); // time from start site to deliver site
-                        int deliverRouteDistance = (Integer) arr.opt(0); // distance between collect site and deliver site
-                        long tmp = curTime; // record the current time before update operation
+                        long deliverRouteTime = data.getTravelTime((int) startSite.getId(), (int) deliverSite.getId()); // time from start site to deliver site
+                        int deliverRouteDistance = data.getDistance((int) startSite.getId(), (int) deliverSite.getId()); // distance between collect site and deliver site
+                        long tmp = state.curTime; // record the current time before update operation
 
-                        if ((curTime + deliverRouteTime * 1000)
+                        if ((state.curTime + deliverRouteTime * 1000)
                                 >= customer.getDeliverTimeWindow().getStart().getTime()
-                                && (curTime + deliverRouteTime * 1000)
+                                && (state.curTime + deliverRouteTime * 1000)
                                 <= customer.getDeliverTimeWindow().getEnd().getTime()) {
                             // drive to the delivery site and then deliver
-                            driveTime += deliverRouteTime * 1000;
-                            curTime += deliverRouteTime * 1000;
+                            state.driveTime += deliverRouteTime * 1000;
+                            state.curTime += deliverRouteTime * 1000;
                             dailyDriveTime += deliverRouteTime * 1000; // update
                             totalDistance += deliverRouteDistance;
-                            createTimeNode(getVehicle(),
-                                    tmp,
+                            stageTimeNode(tmp,
                                     deliverRouteTime * 1000,
                                     "drive",
                                     deliverRouteDistance,
-                                    customer.getId(),
-                                    "temp"); // temporarily create time node
-                            List<Long> breakResult = needBreaks(curTime,
-                                    duration - vehicleStartTime,
-                                    breakTime, otherTime, driveTime, customer); // check whether a break is need
-                            if (!breakResult.isEmpty()) {
-                                breakTime = breakResult.get(0);
-                                driveTime = breakResult.get(1);
-                                curTime = breakResult.get(2);
-                                otherTime = breakResult.get(3);
+                                    customer.getId()); // stage time node
+                            takeBreaks(state, duration - vehicleStartTime, customer); // check whether a break is need
+                            if (state.curTime > customer.getDeliverTimeWindow().getEnd().getTime()) {
+                                // a break taken on arrival has pushed the service past the time window
+                                return REJECTED;
                             }
-                            otherTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
-                            curTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
-                            createTimeNode(getVehicle(),
-                                    tmp + (deliverRouteTime * 1000),
+                            stageTimeNode(state.curTime,
                                     customer.getDeliverTimeinMinutes() * 60 * 1000,
                                     customer.getDeliverId(),
                                     0,
-                                    customer.getId(),
-                                    "temp"); // temporarily create time node
-                            breakResult = needBreaks(curTime,
-                                    duration - vehicleStartTime,
-                                    breakTime, otherTime, driveTime, customer); // check whether a break is need
-                            if (!breakResult.isEmpty()) {
-                                breakTime = breakResult.get(0);
-                                driveTime = breakResult.get(1);
-                                curTime = breakResult.get(2);
-                                otherTime = breakResult.get(3);
-                            }
-                        } else if ((curTime + deliverRouteTime * 1000)
+                                    customer.getId()); // stage time node
+                            state.otherTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
+                            state.curTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
+                            takeBreaks(state, duration - vehicleStartTime, customer); // check whether a break is need
+                        } else if ((state.curTime + deliverRouteTime * 1000)
                                 < customer.getDeliverTimeWindow().getStart().getTime()) {
                             // need to wait until the delivery window opens, then add the time waiting for the window to open
-                            long wait = Math.abs(customer.getDeliverTimeWindow().getStart().getTime() - (curTime + deliverRouteTime * 1000));
-                            curTime += wait;
-                            createTimeNode(getVehicle(),
-                                    tmp,
+                            long wait = Math.abs(customer.getDeliverTimeWindow().getStart().getTime() - (state.curTime + deliverRouteTime * 1000));
+                            state.curTime += wait;
+                            stageTimeNode(tmp,
                                     wait,
                                     "wait",
                                     0,
-                                    customer.getId(),
-                                    "temp"); // temporarily create time node
-                            driveTime += deliverRouteTime * 1000;
-                            curTime += deliverRouteTime * 1000;
+                                    customer.getId()); // stage time node
+                            state.driveTime += deliverRouteTime * 1000;
+                            state.curTime += deliverRouteTime * 1000;
                             dailyDriveTime += deliverRouteTime * 1000; // update
                             totalDistance += deliverRouteDistance;
-                            createTimeNode(getVehicle(),
-                                    tmp
+                            stageTimeNode(tmp
                                             + wait,
                                     deliverRouteTime * 1000,
                                     "drive",
                                     deliverRouteDistance,
-                                    customer.getId(),
-                                    "temp"); // temporarily create time node
-                            List<Long> breakResult = needBreaks(curTime,
-                                    duration - vehicleStartTime,
-                                    breakTime, otherTime, driveTime, customer); // check whether a break is need
-                            if (!breakResult.isEmpty()) {
-                                breakTime = breakResult.get(0);
-                                driveTime = breakResult.get(1);
-                                curTime = breakResult.get(2);
-                                otherTime = breakResult.get(3);
+                                    customer.getId()); // stage time node
+                            takeBreaks(state, duration - vehicleStartTime, customer); // check whether a break is need
+                            if (state.curTime > customer.getDeliverTimeWindow().getEnd().getTime()) {
+                                // a break taken on arrival has pushed the service past the time window
+                                return REJECTED;
                             }
-                            otherTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
-                            curTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
-                            createTimeNode(getVehicle(),
-                                    tmp
-                                            + wait
-                                            + deliverRouteTime * 1000,
+                            stageTimeNode(state.curTime,
                                     customer.getDeliverTimeinMinutes() * 60 * 1000,
                                     customer.getDeliverId(),
                                     0,
-                                    customer.getId(),
-                                    "temp"); // temporarily create time node
-                            breakResult = needBreaks(curTime,
-                                    duration - vehicleStartTime,
-                                    breakTime, otherTime, driveTime, customer); // check whether a break is need
-                            if (!breakResult.isEmpty()) {
-                                breakTime = breakResult.get(0);
-                                driveTime = breakResult.get(1);
-                                curTime = breakResult.get(2);
-                                otherTime = breakResult.get(3);
-                            }
+                                    customer.getId()); // stage time node
+                            state.otherTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
+                            state.curTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
+                            takeBreaks(state, duration - vehicleStartTime, customer); // check whether a break is need
                         } else {
                             // not meet the time window constraint
-                            return new InnerTuple<>(false, new GlobalData());
+                            return REJECTED;
                         }
                     } else {
-                        long tmp = curTime;
-                        if (curTime >= customer.getDeliverTimeWindow().getStart().getTime()
-                                && curTime <= customer.getDeliverTimeWindow().getEnd().getTime()) {
-                            otherTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
-                            curTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
-                            createTimeNode(getVehicle(),
-                                    tmp,
+                        long tmp = state.curTime;
+                        if (state.curTime >= customer.getDeliverTimeWindow().getStart().getTime()
+                                && state.curTime <= customer.getDeliverTimeWindow().getEnd().getTime()) {
+                            state.otherTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
+                            state.curTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
+                            stageTimeNode(tmp,
                                     customer.getDeliverTimeinMinutes() * 60 * 1000,
                                     customer.getDeliverId(),
                                     0,
-                                    customer.getId(),
-                                    "temp");
-                            List<Long> breakResult = needBreaks(curTime,
-                                    duration - vehicleStartTime,
-                                    breakTime, otherTime, driveTime, customer); // check whether a break is need
-                            if (!breakResult.isEmpty()) {
-                                breakTime = breakResult.get(0);
-                                driveTime = breakResult.get(1);
-                                curTime = breakResult.get(2);
-                                otherTime = breakResult.get(3);
-                            }
-                        } else if (curTime < customer.getDeliverTimeWindow().getStart().getTime()) {
-                            long wait = (customer.getDeliverTimeWindow().getStart().getTime() - curTime);
-                            curTime += wait;
-                            createTimeNode(getVehicle(),
-                                    tmp,
+                                    customer.getId());
+                            takeBreaks(state, duration - vehicleStartTime, customer); // check whether a break is need
+                        } else if (state.curTime < customer.getDeliverTimeWindow().getStart().getTime()) {
+                            long wait = (customer.getDeliverTimeWindow().getStart().getTime() - state.curTime);
+                            state.curTime += wait;
+                            stageTimeNode(tmp,
                                     wait,
                                     "wait",
                                     0,
-                                    customer.getId(),
-                                    "temp");
-                            otherTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
-                            curTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
-                            createTimeNode(getVehicle(),
-                                    tmp + wait,
+                                    customer.getId());
+                            state.otherTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
+                            state.curTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
+                            stageTimeNode(tmp + wait,
                                     customer.getDeliverTimeinMinutes() * 60 * 1000,
                                     customer.getDeliverId(),
                                     0,
-                                    customer.getId(),
-                                    "temp");
-                            List<Long> breakResult = needBreaks(curTime,
-                                    duration - vehicleStartTime,
-                                    breakTime, otherTime, driveTime, customer); // check whether a break is need
-                            if (!breakResult.isEmpty()) {
-                                breakTime = breakResult.get(0);
-                                driveTime = breakResult.get(1);
-                                curTime = breakResult.get(2);
-                                otherTime = breakResult.get(3);
-                            }
+                                    customer.getId());
+                            takeBreaks(state, duration - vehicleStartTime, customer); // check whether a break is need
                         } else {
-                            return new InnerTuple<>(false, new GlobalData());
+                            return REJECTED;
                         }
                     }
 
-                    overallDeliverTime = new Date(curTime);
+                    overallDeliverTime = new Date(state.curTime);
                 }
 
                 // 6. check whether the Maximum constraints is met during the delivery period
                 if (!collectFirst) {
                     // 1) route duration
-                    long mDuration = (long) getVehicle().getMDurationInHours() * 60 * 60 * 1000;
-                    if ((curTime - (getVehicle().getStartTime()).getTime()) > mDuration) {
+                    long mDuration = data.getRegulation().getMaxDuty();
+                    if ((state.curTime - (getVehicle().getStartTime()).getTime()) > mDuration) {
                         // not meet the constraint
-//                        System.out.println("The vehicle " + getVehicle().getId() + " has worked more than 13 hours in one day.");
-                        return new InnerTuple<>(false, new GlobalData());
+//                        System.out.println("The vehicle " + getVehicle().getId() + " has worked more than " + mDuration / 60000 + " minutes in one day.");
+                        return REJECTED;
                     }
                     // 2) daily drive time
-                    long mDailyDrive = (long) getVehicle().getmDailyDriveInHours() * 60 * 60 * 1000;
-                    if ((dailyDriveTime - (getVehicle().getStartTime()).getTime()) > mDailyDrive) {
+                    long mDailyDrive = data.getRegulation().getMaxDailyDrive();
+                    if (dailyDriveTime > mDailyDrive) {
                         // not meet the constraint
-//                        System.out.println("The vehicle " + getVehicle().getId() + " has driven more than 9 hours in one day.");
-                        return new InnerTuple<>(false, new GlobalData());
+//                        System.out.println("The vehicle " + getVehicle().getId() + " has driven more than " + mDailyDrive / 60000 + " minutes in one day.");
+                        return REJECTED;
+                    }
+                    // 3) return journey, as the customer may be the last one of the route
+                    if (!canReturn(data, state.curTime, (int) deliverSite.getId(), dailyDriveTime)) {
+                        return REJECTED;
                     }
 
-                    // 7. set data to the 'data'
-                    GlobalData globalData = new GlobalData(
-                            curTime - (getVehicle().getStartTime()).getTime(),
+                    // 7. set data to the globalData, the route and the global 'data' are only updated by addACustomer()
+                    GlobalData globalData = new GlobalData(data.getContext(),
+                            state.curTime - (getVehicle().getStartTime()).getTime(),
                             deliverSite,
-                            breakTime, overallDeliverTime,
+                            state.breakTime, overallDeliverTime,
                             getId(), customer.getId(),
                             dailyDriveTime,
                             totalDistance);
+                    globalData.setDriveTime(state.driveTime);
+                    globalData.setOtherTime(state.otherTime);
                     res = new InnerTuple<>(true, globalData);
-
-                    // 8. set data to the global data
-                    data.setCurTime(curTime - (getVehicle().getStartTime()).getTime());
-                    data.setDeliverSite(deliverSite);
-                    data.setOverallDeliverTime(overallDeliverTime);
-
-                    // 9. set breakTime, otherTime and driveTime
-                    data.setBreakTime(breakTime);
-                    data.setOtherTime(otherTime);
-                    data.setDriveTime(driveTime);
-
-                    // 10. add current customer into the assignedCustomer
-                    List<Customer> customerList = assignedCustomer.get(getId());
-                    if (customerList != null && !customerList.isEmpty()) { // add directly
-                        customerList.add(customer);
-                        assignedCustomer.put(getId(), customerList);
-                    } else { // create a new list and then add current customer
-                        List<Customer> newList = new ArrayList<>();
-                        newList.add(customer);
-                        assignedCustomer.put(getId(), newList);
-                    }
-
-                    // 11. mark as delivered
-                    customer.setDelivered(true);
                 } else {
                     res = new InnerTuple<>(true, new GlobalData());
                 }
                 return res;
             } else {
                 System.out.println("Please ensure that the new request is valid.");
-                return new InnerTuple<>(false, new GlobalData());
+                return REJECTED;
             }
         }
 
@@ -3405,35 +4287,33 @@ public class AADS {
             long dailyDriveTime = 0; // daily accumulated drive time
             int totalDistance = 0;
             InnerTuple<Boolean, GlobalData> res;
+            stagedSize = 0; // drop the time nodes of the previous probe
 
             if (customer != null) {
                 // 1. each requested collection site must be visited before the corresponding delivery site
-                for (Customer otherCustomer : getCustomers()) {
-                    // if find current customer's collection site
-                    if (otherCustomer.getDeliverSite().getId() == customer.getCollectSite().getId()) {
-                        // since the indexOf of the new request returns -1, if the existing customer is before the current customer, it is not we want
-                        if (getCustomers().indexOf(otherCustomer) < getCustomers().indexOf(customer)) {
-//                            System.out.println("The customer " + customer.getId() + " should meet the precedence constraints: " +
-//                                    "the collect site must be the predecessor of the delivered site.");
-                            return new InnerTuple<>(false, new GlobalData());
-                        }
-                    }
+                //    (a new request is not in the route yet, so it is only checked when the customer is already there)
+                if (isDeliveredBefore(customer.getCollectSite().getId(), customer)) {
+//                    System.out.println("The customer " + customer.getId() + " should meet the precedence constraints: " +
+//                            "the collect site must be the predecessor of the delivered site.");
+                    return REJECTED;
                 }
 
                 // 2. customer capacity does not exceed the vehicle's gross weight
                 if (getOverallWeight() + customer.getWeight() > getVehicle().getWeight()) {
 //                    System.out.println("The capacity of vehicle " + getVehicle().getId() +
 //                            " is full and new customers cannot be added.");
-                    return new InnerTuple<>(false, new GlobalData());
+                    return REJECTED;
                 }
 
                 // 3. vehicle must arrive within the collect time window (if earlier, wait; if later, reject the customer)
-                long curTime;
+                BreakState state = breakState.reset(data.getRegulation(), 0,
+                        routeBreakTime, routeDriveTime, routeOtherTime); // break state of the probe
                 if (!getCustomers().isEmpty()) {
-                    curTime = (getVehicle().getStartTime()).getTime() + getOverallDuration(); // total time of the previous customer
+                    state.curTime = (getVehicle().getStartTime()).getTime() + getOverallDuration(); // total time of the previous customer
                 } else {
-                    curTime = (getVehicle().getStartTime()).getTime(); // vehicle's start time
+                    state.curTime = (getVehicle().getStartTime()).getTime(); // vehicle's start time
                 }
+                if (overDuty(state, data)) return REJECTED; // the route has no duty time left
 
                 // get the start time of current vehicle
                 Date date = data.getOverallDeliverTime();
@@ -3442,332 +4322,230 @@ public class AADS {
                 long vehicleStartTime = (getVehicle().getStartTime()).getTime();
 
                 // obtain current route's accumulated break time, other work time and drive time
-                long breakTime = data.getBreakTime(),
-                        otherTime = data.getOtherTime(),
-                        driveTime = data.getDriveTime();
 
                 // 4. obtain start site and collect site
-                Site startSite = data.getLocationList().get(getVehicle().getCurSiteId()); // each customer starts from the current site
-                Site collectSite = data.getLocationList().get((int) customer.getCollectSite().getId());
+                Site startSite = data.getSite(getVehicle().getCurSiteId()); // each customer starts from the current site
+                Site collectSite = data.getSite((int) customer.getCollectSite().getId());
 
                 // 5. check whether the start site is the collect site
                 if (startSite == collectSite) {
                     // if the vehicle do not need to drive to the collect site
-                    long tmp = curTime; // record the current time before update operation
-                    if (curTime >= customer.getCollectTimeWindow().getStart().getTime()
-                            && curTime <= customer.getCollectTimeWindow().getEnd().getTime()) {
+                    long tmp = state.curTime; // record the current time before update operation
+                    if (state.curTime >= customer.getCollectTimeWindow().getStart().getTime()
+                            && state.curTime <= customer.getCollectTimeWindow().getEnd().getTime()) {
                         // current time is within the time window, directly collect customers and then compute the time consumed
-                        otherTime += customer.getCollectTimeinMinutes() * 60 * 1000;
-                        curTime += customer.getCollectTimeinMinutes() * 60 * 1000;
-                        createTimeNode(getVehicle(),
-                                tmp,
+                        state.otherTime += customer.getCollectTimeinMinutes() * 60 * 1000;
+                        state.curTime += customer.getCollectTimeinMinutes() * 60 * 1000;
+                        stageTimeNode(tmp,
                                 customer.getCollectTimeinMinutes() * 60 * 1000,
                                 customer.getCollectId(),
                                 0,
-                                customer.getId(),
-                                "temp"); // temporarily create time node
-                        List<Long> breakResult = needBreaks(curTime,
-                                curTime - tmp,
-                                breakTime, otherTime, driveTime, customer); // check whether a break is need
-                        if (!breakResult.isEmpty()) {
-                            breakTime = breakResult.get(0);
-                            driveTime = breakResult.get(1);
-                            curTime = breakResult.get(2);
-                            otherTime = breakResult.get(3);
-                        }
-                    } else if (curTime < customer.getCollectTimeWindow().getStart().getTime()) {
+                                customer.getId()); // stage time node
+                        takeBreaks(state, state.curTime - tmp, customer); // check whether a break is need
+                    } else if (state.curTime < customer.getCollectTimeWindow().getStart().getTime()) {
                         // need to wait until the collect window opens, then add the time waiting for the window to open
-                        long wait = Math.abs(customer.getCollectTimeWindow().getStart().getTime() - curTime);
-                        curTime += wait;
-                        createTimeNode(getVehicle(),
-                                tmp,
+                        long wait = Math.abs(customer.getCollectTimeWindow().getStart().getTime() - state.curTime);
+                        state.curTime += wait;
+                        stageTimeNode(tmp,
                                 wait,
                                 "wait",
                                 0,
-                                customer.getId(),
-                                "temp"); // temporarily create time node
-                        otherTime += customer.getCollectTimeinMinutes() * 60 * 1000;
-                        curTime += customer.getCollectTimeinMinutes() * 60 * 1000;
-                        createTimeNode(getVehicle(),
-                                tmp + wait,
+                                customer.getId()); // stage time node
+                        state.otherTime += customer.getCollectTimeinMinutes() * 60 * 1000;
+                        state.curTime += customer.getCollectTimeinMinutes() * 60 * 1000;
+                        stageTimeNode(tmp + wait,
                                 customer.getCollectTimeinMinutes() * 60 * 1000,
                                 customer.getCollectId(),
                                 0,
-                                customer.getId(),
-                                "temp"); // temporarily create time node
-                        List<Long> breakResult = needBreaks(curTime,
-                                curTime - tmp,
-                                breakTime, otherTime, driveTime, customer); // check whether a break is need
-                        if (!breakResult.isEmpty()) {
-                            breakTime = breakResult.get(0);
-                            driveTime = breakResult.get(1);
-                            curTime = breakResult.get(2);
-                            otherTime = breakResult.get(3);
-                        }
+                                customer.getId()); // stage time node
+                        takeBreaks(state, state.curTime - tmp, customer); // check whether a break is need
                     } else {
                         // the time window constraint is not met
-                        return new InnerTuple<>(false, new GlobalData());
+                        return REJECTED;
                     }
                 } else {
                     // vehicle should drive to the collect site and then compute the time consumed
-                    JSONArray arr = new JSONArray((String) startSite.getDisAndTime().toList().get((int) collectSite.getId()));
-                    long collectRouteTime = ((Integer) arr.opt(1)).longValue(); // time from start site to collect site
-                    int collectRouteDistance = (Integer) arr.opt(0); // distance between start site and collect site
-                    long tmp = curTime; // record the current time before update operation
+                    long collectRouteTime = data.getTravelTime((int) startSite.getId(), (int) collectSite.getId()); // time from start site to collect site
+                    int collectRouteDistance = data.getDistance((int) startSite.getId(), (int) collectSite.getId()); // distance between start site and collect site
+                    long tmp = state.curTime; // record the current time before update operation
 
-                    if ((curTime + collectRouteTime * 1000)
+                    if ((state.curTime + collectRouteTime * 1000)
                             >= customer.getCollectTimeWindow().getStart().getTime()
-                            && (curTime + collectRouteTime * 1000)
+                            && (state.curTime + collectRouteTime * 1000)
                             <= customer.getCollectTimeWindow().getEnd().getTime()) {
                         // drive to the collect site to collect
-                        driveTime += collectRouteTime * 1000;
-                        curTime += collectRouteTime * 1000;
+                        state.driveTime += collectRouteTime * 1000;
+                        state.curTime += collectRouteTime * 1000;
                         dailyDriveTime += collectRouteTime * 1000; // update
                         totalDistance += collectRouteDistance;
-                        createTimeNode(getVehicle(),
-                                tmp,
+                        stageTimeNode(tmp,
                                 collectRouteTime * 1000,
                                 "drive",
                                 collectRouteDistance,
-                                customer.getId(),
-                                "temp"); // temporarily create time node
-                        List<Long> breakResult = needBreaks(curTime,
-                                curTime - tmp,
-                                breakTime, otherTime, driveTime, customer); // check whether a break is need
-                        if (!breakResult.isEmpty()) {
-                            breakTime = breakResult.get(0);
-                            driveTime = breakResult.get(1);
-                            curTime = breakResult.get(2);
-                            otherTime = breakResult.get(3);
+                                customer.getId()); // stage time node
+                        takeBreaks(state, state.curTime - tmp, customer); // check whether a break is need
+                        if (state.curTime > customer.getCollectTimeWindow().getEnd().getTime()) {
+                            // a break taken on arrival has pushed the service past the time window
+                            return REJECTED;
                         }
-                        otherTime += customer.getCollectTimeinMinutes() * 60 * 1000;
-                        curTime += customer.getCollectTimeinMinutes() * 60 * 1000;
-                        createTimeNode(getVehicle(),
-                                tmp + collectRouteTime * 1000,
+                        stageTimeNode(state.curTime,
                                 customer.getCollectTimeinMinutes() * 60 * 1000,
                                 customer.getCollectId(),
                                 0,
-                                customer.getId(),
-                                "temp"); // temporarily create time node
-                        breakResult = needBreaks(curTime,
-                                curTime - tmp,
-                                breakTime, otherTime, driveTime, customer); // check whether a break is need
-                        if (!breakResult.isEmpty()) {
-                            breakTime = breakResult.get(0);
-                            driveTime = breakResult.get(1);
-                            curTime = breakResult.get(2);
-                            otherTime = breakResult.get(3);
-                        }
-                    } else if ((curTime + collectRouteTime * 1000)
+                                customer.getId()); // stage time node
+                        state.otherTime += customer.getCollectTimeinMinutes() * 60 * 1000;
+                        state.curTime += customer.getCollectTimeinMinutes() * 60 * 1000;
+                        takeBreaks(state, state.curTime - tmp, customer); // check whether a break is need
+                    } else if ((state.curTime + collectRouteTime * 1000)
                             < customer.getCollectTimeWindow().getStart().getTime()) {
                         // need to wait until the collect window opens, then add the time waiting for the window to open
-                        long wait = Math.abs(customer.getCollectTimeWindow().getStart().getTime() - (curTime + collectRouteTime * 1000));
-                        curTime += wait;
-                        createTimeNode(getVehicle(),
-                                tmp,
+                        long wait = Math.abs(customer.getCollectTimeWindow().getStart().getTime() - (state.curTime + collectRouteTime * 1000));
+                        state.curTime += wait;
+                        stageTimeNode(tmp,
                                 wait,
                                 "wait",
                                 0,
-                                customer.getId(),
-                                "temp"); // temporarily create time node
-                        driveTime += collectRouteTime * 1000;
-                        curTime += collectRouteTime * 1000;
+                                customer.getId()); // stage time node
+                        state.driveTime += collectRouteTime * 1000;
+                        state.curTime += collectRouteTime * 1000;
                         dailyDriveTime += collectRouteTime * 1000; // update
                         totalDistance += collectRouteDistance;
-                        createTimeNode(getVehicle(),
-                                tmp
+                        stageTimeNode(tmp
                                         + wait,
                                 collectRouteTime * 1000,
                                 "drive",
                                 collectRouteDistance,
-                                customer.getId(),
-                                "temp"); // temporarily create time node
-                        List<Long> breakResult = needBreaks(curTime,
-                                curTime - tmp,
-                                breakTime, otherTime, driveTime, customer); // check whether a break is need
-                        if (!breakResult.isEmpty()) {
-                            breakTime = breakResult.get(0);
-                            driveTime = breakResult.get(1);
-                            curTime = breakResult.get(2);
-                            otherTime = breakResult.get(3);
+                                customer.getId()); // stage time node
+                        takeBreaks(state, state.curTime - tmp, customer); // check whether a break is need
+                        if (state.curTime > customer.getCollectTimeWindow().getEnd().getTime()) {
+                            // a break taken on arrival has pushed the service past the time window
+                            return REJECTED;
                         }
-                        otherTime += customer.getCollectTimeinMinutes() * 60 * 1000;
-                        curTime += customer.getCollectTimeinMinutes() * 60 * 1000;
-                        createTimeNode(getVehicle(),
-                                tmp
-                                        + wait
-                                        + collectRouteTime * 1000,
+                        stageTimeNode(state.curTime,
                                 customer.getCollectTimeinMinutes() * 60 * 1000,
                                 customer.getCollectId(),
                                 0,
-                                customer.getId(),
-                                "temp"); // temporarily create time node
-                        breakResult = needBreaks(curTime,
-                                curTime - tmp,
-                                breakTime, otherTime, driveTime, customer); // check whether a break is need
-                        if (!breakResult.isEmpty()) {
-                            breakTime = breakResult.get(0);
-                            driveTime = breakResult.get(1);
-                            curTime = breakResult.get(2);
-                            otherTime = breakResult.get(3);
-                        }
+                                customer.getId()); // stage time node
+                        state.otherTime += customer.getCollectTimeinMinutes() * 60 * 1000;
+                        state.curTime += customer.getCollectTimeinMinutes() * 60 * 1000;
+                        takeBreaks(state, state.curTime - tmp, customer); // check whether a break is need
                     } else {
                         // the time window constraint is not met
-                        return new InnerTuple<>(false, new GlobalData());
+                        return REJECTED;
                     }
                 }
+                if (overDuty(state, data)) return REJECTED; // no need to simulate the delivery
 
                 // 6. get delivery site
-                Site deliverSite = data.getLocationList().get((int) customer.getDeliverSite().getId());
+                Site deliverSite = data.getSite((int) customer.getDeliverSite().getId());
 
                 // 7. vehicle must arrive within the delivery time window (if earlier, wait; if later, reject the customer)
                 if (collectSite != deliverSite) {
                     // vehicle should drive to the delivery site and then compute the time consumed
-                    JSONArray arr = new JSONArray((String) collectSite.getDisAndTime().toList().get((int) deliverSite.getId()));
-                    long deliverRouteTime = ((Integer) arr.opt(1)).longValue(); // time from collect site to delivery site
-                    int deliverRouteDistance = (Integer) arr.opt(0); // distance between collect site and deliver site
-                    long tmp = curTime; //record the current time before update operation
+                    long deliverRouteTime = data.getTravelTime((int) collectSite.getId(), (int) deliverSite.getId()); // time from collect site to delivery site
+                    int deliverRouteDistance = data.getDistance((int) collectSite.getId(), (int) deliverSite.getId()); // distance between collect site and deliver site
+                    long tmp = state.curTime; //record the current time before update operation
 
-                    if ((curTime + deliverRouteTime * 1000)
+                    if ((state.curTime + deliverRouteTime * 1000)
                             >= customer.getDeliverTimeWindow().getStart().getTime()
-                            && (curTime + deliverRouteTime * 1000)
+                            && (state.curTime + deliverRouteTime * 1000)
                             <= customer.getDeliverTimeWindow().getEnd().getTime()) {
                         // drive to the delivery site to deliver
-                        driveTime += deliverRouteTime * 1000;
-                        curTime += deliverRouteTime * 1000;
+                        state.driveTime += deliverRouteTime * 1000;
+                        state.curTime += deliverRouteTime * 1000;
                         dailyDriveTime += deliverRouteTime * 1000; // update
                         totalDistance += deliverRouteDistance;
-                        createTimeNode(getVehicle(),
-                                tmp,
+                        stageTimeNode(tmp,
                                 deliverRouteTime * 1000,
                                 "drive",
                                 deliverRouteDistance,
-                                customer.getId(),
-                                "temp"); // temporarily create time node
-                        List<Long> breakResult = needBreaks(curTime,
-                                curTime - vehicleStartTime,
-                                breakTime, otherTime, driveTime, customer); // check whether a break is need
-                        if (!breakResult.isEmpty()) {
-                            breakTime = breakResult.get(0);
-                            driveTime = breakResult.get(1);
-                            curTime = breakResult.get(2);
-                            otherTime = breakResult.get(3);
+                                customer.getId()); // stage time node
+                        takeBreaks(state, state.curTime - vehicleStartTime, customer); // check whether a break is need
+                        if (state.curTime > customer.getDeliverTimeWindow().getEnd().getTime()) {
+                            // a break taken on arrival has pushed the service past the time window
+                            return REJECTED;
                         }
-                        otherTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
-                        curTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
-                        createTimeNode(getVehicle(),
-                                tmp + (deliverRouteTime * 1000),
+                        stageTimeNode(state.curTime,
                                 customer.getDeliverTimeinMinutes() * 60 * 1000,
                                 customer.getDeliverId(),
                                 0,
-                                customer.getId(),
-                                "temp"); // temporarily create time node
-                        breakResult = needBreaks(curTime,
-                                curTime - vehicleStartTime,
-                                breakTime, otherTime, driveTime, customer); // check whether a break is need
-                        if (!breakResult.isEmpty()) {
-                            breakTime = breakResult.get(0);
-                            driveTime = breakResult.get(1);
-                            curTime = breakResult.get(2);
-                            otherTime = breakResult.get(3);
-                        }
-                    } else if ((curTime + deliverRouteTime * 1000)
+                                customer.getId()); // stage time node
+                        state.otherTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
+                        state.curTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
+                        takeBreaks(state, state.curTime - vehicleStartTime, customer); // check whether a break is need
+                    } else if ((state.curTime + deliverRouteTime * 1000)
                             < customer.getDeliverTimeWindow().getStart().getTime()) {
                         // need to wait until the delivery window opens, then add the time waiting for the window to open
-                        long wait = Math.abs(customer.getDeliverTimeWindow().getStart().getTime() - (curTime + deliverRouteTime * 1000));
-                        curTime += wait;
-                        createTimeNode(getVehicle(),
-                                tmp,
+                        long wait = Math.abs(customer.getDeliverTimeWindow().getStart().getTime() - (state.curTime + deliverRouteTime * 1000));
+                        state.curTime += wait;
+                        stageTimeNode(tmp,
                                 wait,
                                 "wait",
                                 0,
-                                customer.getId(),
-                                "temp"); // temporarily create time node
-                        driveTime += deliverRouteTime * 1000;
-                        curTime += deliverRouteTime * 1000;
+                                customer.getId()); // stage time node
+                        state.driveTime += deliverRouteTime * 1000;
+                        state.curTime += deliverRouteTime * 1000;
                         dailyDriveTime += deliverRouteTime * 1000; // update
                         totalDistance += deliverRouteDistance;
-                        createTimeNode(getVehicle(),
-                                tmp
+                        stageTimeNode(tmp
                                         + wait,
                                 deliverRouteTime * 1000,
                                 "drive",
                                 deliverRouteDistance,
-                                customer.getId(),
-                                "temp"); // temporarily create time node
-                        List<Long> breakResult = needBreaks(curTime,
-                                curTime - vehicleStartTime,
-                                breakTime, otherTime, driveTime, customer); // check whether a break is need
-                        if (!breakResult.isEmpty()) {
-                            breakTime = breakResult.get(0);
-                            driveTime = breakResult.get(1);
-                            curTime = breakResult.get(2);
-                            otherTime = breakResult.get(3);
+                                customer.getId()); // stage time node
+                        takeBreaks(state, state.curTime - vehicleStartTime, customer); // check whether a break is need
+                        if (state.curTime > customer.getDeliverTimeWindow().getEnd().getTime()) {
+                            // a break taken on arrival has pushed the service past the time window
+                            return REJECTED;
                         }
-                        otherTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
-                        curTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
-                        createTimeNode(getVehicle(),
-                                tmp
-                                        + wait
-                                        + deliverRouteTime * 1000,
+                        stageTimeNode(state.curTime,
                                 customer.getDeliverTimeinMinutes() * 60 * 1000,
                                 customer.getDeliverId(),
                                 0,
-                                customer.getId(),
-                                "temp"); // temporarily create time node
-                        breakResult = needBreaks(curTime,
-                                curTime - vehicleStartTime,
-                                breakTime, otherTime, driveTime, customer); // check whether a break is need
-                        if (!breakResult.isEmpty()) {
-                            breakTime = breakResult.get(0);
-                            driveTime = breakResult.get(1);
-                            curTime = breakResult.get(2);
-                            otherTime = breakResult.get(3);
-                        }
+                                customer.getId()); // stage time node
+                        state.otherTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
+                        state.curTime += customer.getDeliverTimeinMinutes() * 60 * 1000;
+                        takeBreaks(state, state.curTime - vehicleStartTime, customer); // check whether a break is need
                     } else {
                         // the time window constraint is not met
-                        return new InnerTuple<>(false, new GlobalData());
+                        return REJECTED;
                     }
                 }
 
                 // 8. check whether the Maximum constraint is met and calculate the cost (overall duration time)
-                Date overallDeliverTime = new Date(curTime);
+                Date overallDeliverTime = new Date(state.curTime);
                 // 1) route duration
-                long mDuration = (long) getVehicle().getMDurationInHours() * 60 * 60 * 1000;
-                if ((curTime - (getVehicle().getStartTime()).getTime()) > mDuration) {
+                long mDuration = data.getRegulation().getMaxDuty();
+                if ((state.curTime - (getVehicle().getStartTime()).getTime()) > mDuration) {
                     // it does not satisfy the constraint
-//                    System.out.println("The vehicle " + getVehicle().getId() + " has worked more than 13 hours in one day.");
-                    return new InnerTuple<>(false, new GlobalData());
+//                    System.out.println("The vehicle " + getVehicle().getId() + " has worked more than " + mDuration / 60000 + " minutes in one day.");
+                    return REJECTED;
                 }
                 // 2) daily drive time
-                long mDailyDrive = (long) getVehicle().getmDailyDriveInHours() * 60 * 60 * 1000;
-                if ((dailyDriveTime - (getVehicle().getStartTime()).getTime()) > mDailyDrive) {
+                long mDailyDrive = data.getRegulation().getMaxDailyDrive();
+                if (dailyDriveTime > mDailyDrive) {
                     // it does not satisfy the constraint
-//                    System.out.println("The vehicle " + getVehicle().getId() + " has driven more than 9 hours in one day.");
-                    return new InnerTuple<>(false, new GlobalData());
+//                    System.out.println("The vehicle " + getVehicle().getId() + " has driven more than " + mDailyDrive / 60000 + " minutes in one day.");
+                    return REJECTED;
+                }
+                // 3) return journey, as the customer may be the last one of the route
+                if (!canReturn(data, state.curTime, (int) deliverSite.getId(), dailyDriveTime)) {
+                    return REJECTED;
                 }
 
-                // 9. set data into the globalData
-                GlobalData globalData = new GlobalData(
-                        curTime - (getVehicle().getStartTime()).getTime(),
-                        deliverSite, breakTime, overallDeliverTime,
+                // 9. set data into the globalData, the route and the global 'data' are only updated by addACustomer()
+                GlobalData globalData = new GlobalData(data.getContext(),
+                        state.curTime - (getVehicle().getStartTime()).getTime(),
+                        deliverSite, state.breakTime, overallDeliverTime,
                         getId(), customer.getId(),
                         dailyDriveTime,
                         totalDistance);
+                globalData.setDriveTime(state.driveTime);
+                globalData.setOtherTime(state.otherTime);
                 res = new InnerTuple<>(true, globalData);
-                data.setCurTime(curTime - (getVehicle().getStartTime()).getTime());
-                data.setDeliverSite(deliverSite);
-                data.setOverallDeliverTime(overallDeliverTime);
-
-                data.setBreakTime(breakTime);
-                data.setDriveTime(driveTime);
-                data.setOtherTime(otherTime);
-
-                // 10. mark as delivered
-                customer.setDelivered(true);
             } else {
                 System.out.println("Please ensure that the new request is valid.");
-                return new InnerTuple<>(false, new GlobalData());
+                return REJECTED;
             }
             return res;
         }
@@ -3775,29 +4553,29 @@ public class AADS {
         public long addACustomer(Customer customer, PreProcessData data, GlobalData globalData,
                                  boolean collectFirst) {
             if (customer != null) {
-                // 1. obtain the data from the globalData and PreProcessData
-                long curTime = data.getCurTime();
-                Site deliverSite = data.getDeliverSite(); // collectSite or deliverSite
-                Date overallDeliverTime = data.getOverallDeliverTime();
+                // 1. obtain the data from the globalData of the probe
+                long curTime = globalData.getCurTime();
+                Site deliverSite = globalData.getDeliverSite(); // collectSite or deliverSite
+                Date overallDeliverTime = globalData.getOverallDeliverTime();
                 int totalDistance = globalData.getOverallDistance();
                 // 2. get the accumulated break of the current route
-                long breakTime = data.getBreakTime();
-                // 2. add the customer to the route
+                long breakTime = globalData.getBreakTime();
+                // 2. add the customer to the route (a request added by combination is collected and delivered at once)
+                indexCustomers();
+                boolean inRoute = firstIndex.containsKey(customer.getId());
+                stops.add(customer);
+                if (!collectFirst && !inRoute) stops.add(customer);
+                scheduledStops = -1;
                 getCustomers().add(customer);
-                // 3. every time addCustomer is executed, a Time node is created and the global list 'tmpTimeList' should be cleared later
-                List<Time> timeList = tmpTimeList;
-                for (Time time : timeList) {
-                    long start = time.getStart().getTime();
-                    createTimeNode(time.getVehicle(), start, (long) time.getDuration(), time.getJobId(),
-                            time.getDistance(), time.getCustomerId(), "create");
-                }
-                tmpTimeList.clear(); // clear
+                if (!collectFirst) customer.setDelivered(true); // mark as delivered
+                // 3. every time addCustomer is executed, the time nodes staged by the probe are created
+                createStagedTimeNodes();
                 // 4. set current site id
                 Vehicle curVehicle = getVehicle(); // get current vehicle of the route
                 curVehicle.setCurSiteId((int) deliverSite.getId());
                 setVehicle(curVehicle);
                 // 5. the overall weight is set only when the last order is delivered
-                if (customer.isDelivered() && !collectFirst) {
+                if (!collectFirst) {
                     int newOverallWeight = getOverallWeight() + customer.getWeight(); // set weight
                     setOverallWeight(newOverallWeight);
                 }
@@ -3816,13 +4594,24 @@ public class AADS {
                 curVehicle.setCurSiteId((int) deliverSite.getId()); // update info
                 sourceVehicleList.set(getRandN(), curVehicle); // set back to the list
                 data.setVehicleList(sourceVehicleList);
-                // 8. clear the driveTime, otherTime and breakTime
-                if (customer.isDelivered() && !collectFirst) {
-                    data.setDriveTime(0);
-                    data.setBreakTime(0);
-                    data.setOtherTime(0);
+                // 8. continue the driveTime, otherTime and breakTime of the route, cleared after a delivery
+                if (!collectFirst) {
+                    routeDriveTime = 0;
+                    routeBreakTime = 0;
+                    routeOtherTime = 0;
+                } else {
+                    routeDriveTime = globalData.getDriveTime();
+                    routeBreakTime = breakTime;
+                    routeOtherTime = globalData.getOtherTime();
+                }
+                data.setCurTime(curTime);
+                data.setDeliverSite(deliverSite);
+                data.setOverallDeliverTime(overallDeliverTime);
+                // 9. add the customer collected or delivered separately into the assignedCustomer
+                if (collectFirst || inRoute) {
+                    data.getContext().getAssignedCustomer().computeIfAbsent(getId(), k -> new ArrayList<>()).add(customer);
                 }
-                // 9. return route id
+                // 10. return route id
                 return getId();
             }
             return -1;
@@ -3832,31 +4621,28 @@ public class AADS {
             if (customer != null) {
                 // 1. get data from the global 'data'
                 long curTime = overallDuration; // time after delivery
-                Site deliverSite = data.getDeliverSite();
+                Site deliverSite = data.getSite(getVehicle().getCurSiteId()); // last site of this route
 
                 // 2. get time from the destination to the start site
-                Site endSite = data.getLocationList().get(getVehicle().getEndSite()); // end site of the vehicle
+                Site endSite = data.getSite(getVehicle().getEndSite()); // end site of the vehicle
                 long returnTime;
                 int returnDistance;
                 if (endSite == deliverSite) { // vehicle destination = delivery site
                     returnTime = 0;
                     returnDistance = 0;
                 } else { // vehicle destination != delivery site
-                    JSONArray arr = new JSONArray((String) deliverSite.getDisAndTime().toList().get((int) endSite.getId()));
-                    returnTime = ((Integer) arr.opt(1)).longValue(); // time from the delivery site to the end site of the vehicle
-                    returnDistance = (Integer) arr.opt(0); // distance between deliver site and start site
+                    returnTime = data.getReturnTimes((int) endSite.getId())[(int) deliverSite.getId()]; // time from the delivery site to the end site of the vehicle
+                    returnDistance = data.getDistance((int) deliverSite.getId(), (int) endSite.getId()); // distance between deliver site and start site
                 }
 
                 // 3. get overall duration time and create time nodes
                 try {
                     curTime += returnTime * 1000;
-                    createTimeNode(getVehicle(),
+                    getVehicle().getTimeline().add("return",
                             overallDuration, // input parameter
                             returnTime * 1000, // unit: ms
-                            "return",
                             returnDistance,
-                            customer.getId(),
-                            "create"); // create here, not just save as before
+                            customer.getId()); // create here, not just save as before
 
                     // 4. get drive time
                     dailyDriveTime += returnTime * 1000;
@@ -3869,14 +4655,14 @@ public class AADS {
                     // 6. if the constraints are not met, an exception will be thrown and the customer will be rejected by initializePopulation()
                     long newOverallDuration = curTime;
                     // 1) route duration
-                    long mDuration = (long) curVehicle.getMDurationInHours() * 60 * 60 * 1000;
+                    long mDuration = data.getRegulation().getMaxDuty();
                     if ((newOverallDuration - (curVehicle.getStartTime()).getTime()) > mDuration) {
-                        throw new RuntimeException("The vehicle " + curVehicle.getId() + " has worked more than 13 hours in one day.");
+                        throw new RuntimeException("The vehicle " + curVehicle.getId() + " has worked more than " + mDuration / 60000 + " minutes in one day.");
                     }
                     // 2) daily drive time (should add the start time of vehicle and then do subtraction)
-                    long mDailyDrive = (long) curVehicle.getmDailyDriveInHours() * 60 * 60 * 1000;
+                    long mDailyDrive = data.getRegulation().getMaxDailyDrive();
                     if (((dailyDriveTime + curVehicle.getStartTime().getTime()) - (curVehicle.getStartTime()).getTime()) > mDailyDrive) {
-                        throw new RuntimeException("The vehicle " + curVehicle.getId() + " has driven more than 9 hours in one day.");
+                        throw new RuntimeException("The vehicle " + curVehicle.getId() + " has driven more than " + mDailyDrive / 60000 + " minutes in one day.");
                     }
 
                     // 7. update parameters
@@ -3891,17 +4677,272 @@ public class AADS {
             }
             return true;
         }
-    }
-
-    /**
-     * Individual(chromosome) DTO
-     */
-    protected static class Individual {
-        private long id;
-        private List<Route> routes; // route list
-        private double fitness;
-
-        private static int next = 0; // auto-increment id
+
+        /**
+         * travel time between two sites in ms, zero if the vehicle stays at the site
+         */
+        private static long travelTime(PreProcessData data, int from, int to) {
+            return from == to ? 0 : data.getTravelTime(from, to) * 1000;
+        }
+
+        /**
+         * schedule the stops without breaks, and compute the forward time slack and the shifts of the route end
+         */
+        private void scheduleStops(PreProcessData data) {
+            if (scheduledStops >= 0) return;
+            int n = stops.size();
+            if (stopSite.length < n + 2) {
+                int capacity = Math.max(n + 2, stopSite.length * 2);
+                stopSite = new int[capacity];
+                stopStart = new long[capacity];
+                stopDepart = new long[capacity];
+                stopWait = new long[capacity];
+                stopEarly = new long[capacity];
+                stopRoom = new long[capacity];
+                stopSlack = new long[capacity];
+                waitAfter = new long[capacity];
+                pullAfter = new long[capacity];
+            }
+            // 1. forward pass, the vehicle leaves its start site at its start time
+            long vehicleStartTime = getVehicle().getStartTime().getTime();
+            stopSite[0] = getVehicle().getStartSite();
+            stopStart[0] = vehicleStartTime;
+            stopDepart[0] = vehicleStartTime;
+            Set<Long> collected = new HashSet<>();
+            for (int k = 1; k <= n; k++) {
+                Customer stop = stops.get(k - 1);
+                boolean collect = collected.add(stop.getId());
+                int site = (int) (collect ? stop.getCollectSite().getId() : stop.getDeliverSite().getId());
+                Time window = collect ? stop.getCollectTimeWindow() : stop.getDeliverTimeWindow();
+                long service = (collect ? stop.getCollectTimeinMinutes() : stop.getDeliverTimeinMinutes()) * 60 * 1000L;
+                long arrival = stopDepart[k - 1] + travelTime(data, stopSite[k - 1], site);
+                stopSite[k] = site;
+                stopStart[k] = Math.max(arrival, window.getStart().getTime());
+                stopWait[k] = stopStart[k] - arrival;
+                stopEarly[k] = window.getStart().getTime() - stopStart[k];
+                stopRoom[k] = window.getEnd().getTime() - stopStart[k];
+                stopDepart[k] = stopStart[k] + service;
+            }
+            // 2. backward pass, the end of the route (index n + 1) is bounded by the maximum route duration
+            long mDuration = data.getRegulation().getMaxDuty();
+            stopWait[n + 1] = 0;
+            stopSlack[n + 1] = vehicleStartTime + mDuration - stopDepart[n];
+            waitAfter[n + 1] = 0;
+            pullAfter[n + 1] = Long.MIN_VALUE / 4;
+            for (int k = n; k >= 1; k--) {
+                stopSlack[k] = Math.min(stopRoom[k], stopWait[k + 1] + stopSlack[k + 1]);
+                waitAfter[k] = stopWait[k] + waitAfter[k + 1];
+                pullAfter[k] = Math.max(stopEarly[k] - waitAfter[k + 1], pullAfter[k + 1]);
+            }
+            scheduledStops = n;
+        }
+
+        /**
+         * cost of a route whose k-th stop is reached from the site at the given time, Long.MAX_VALUE if it is infeasible
+         * (k = n + 1 means the route ends at the site)
+         */
+        private long costFrom(PreProcessData data, int k, int site, long depart) {
+            int n = scheduledStops;
+            if (k > n) return depart - stopDepart[n] <= stopSlack[n + 1] ? depart - stopDepart[n] : Long.MAX_VALUE;
+            // the shift of the k-th stop is passed on to the end of the route, reduced by the waiting on the way
+            long shift = Math.max(stopEarly[k], depart + travelTime(data, site, stopSite[k]) - stopStart[k]);
+            if (shift > stopSlack[k]) return Long.MAX_VALUE;
+            return Math.max(shift - waitAfter[k + 1], pullAfter[k + 1]);
+        }
+
+        /**
+         * score every pair of positions for the collect and deliver stops of the customer in O(n^2) without allocation,
+         * the stops are scheduled without breaks, so a cost (the increase of the route duration) is a lower bound,
+         * the best pair inside the route is kept for insertCustomer() and the cost of appending both stops in appendCost,
+         * return the cost of the best pair inside the route, or Long.MAX_VALUE if there is none
+         */
+        public long bestInsertion(Customer customer, PreProcessData data) {
+            long best = Long.MAX_VALUE;
+            appendCost = Long.MAX_VALUE;
+            insertCollectPos = -1;
+            insertDeliverPos = -1;
+            if (customer == null || getVehicle().getStartTime() == null) return best;
+
+            // 1. customer capacity does not exceed the vehicle's gross weight (the weights of a route add up)
+            if (getOverallWeight() + customer.getWeight() > getVehicle().getWeight()) return best;
+
+            // 2. schedule the route
+            scheduleStops(data);
+            int n = scheduledStops;
+            int collectSite = (int) customer.getCollectSite().getId();
+            int deliverSite = (int) customer.getDeliverSite().getId();
+            long collectEarliest = customer.getCollectTimeWindow().getStart().getTime();
+            long collectLatest = customer.getCollectTimeWindow().getEnd().getTime();
+            long deliverEarliest = customer.getDeliverTimeWindow().getStart().getTime();
+            long deliverLatest = customer.getDeliverTimeWindow().getEnd().getTime();
+            long collectService = customer.getCollectTimeinMinutes() * 60 * 1000L;
+            long deliverService = customer.getDeliverTimeinMinutes() * 60 * 1000L;
+
+            // 3. the collect stop goes before the i-th stop (i = n + 1 appends it)
+            for (int i = 1; i <= n + 1; i++) {
+                long collectArrival = stopDepart[i - 1] + travelTime(data, stopSite[i - 1], collectSite);
+                if (collectArrival > collectLatest) continue;
+                long collectDepart = Math.max(collectArrival, collectEarliest) + collectService;
+
+                // 1) the deliver stop right after the collect stop
+                long deliverArrival = collectDepart + travelTime(data, collectSite, deliverSite);
+                if (deliverArrival <= deliverLatest) {
+                    long cost = costFrom(data, i, deliverSite, Math.max(deliverArrival, deliverEarliest) + deliverService);
+                    if (i > n) {
+                        appendCost = cost;
+                    } else if (cost < best) {
+                        best = cost;
+                        insertCollectPos = i;
+                        insertDeliverPos = i;
+                    }
+                }
+                if (i > n) break;
+
+                // 2) the deliver stop before the j-th stop (j > i), the stops in between are shifted by the collect stop
+                long shift = Math.max(stopEarly[i], collectDepart + travelTime(data, collectSite, stopSite[i]) - stopStart[i]);
+                for (int j = i + 1; j <= n + 1; j++) {
+                    int k = j - 1; // stop before the deliver stop
+                    if (shift > stopSlack[k]) break; // later deliver stops only shift it further
+                    deliverArrival = stopDepart[k] + shift + travelTime(data, stopSite[k], deliverSite);
+                    if (deliverArrival <= deliverLatest) {
+                        long cost = costFrom(data, j, deliverSite, Math.max(deliverArrival, deliverEarliest) + deliverService);
+                        if (cost < best) {
+                            best = cost;
+                            insertCollectPos = i;
+                            insertDeliverPos = j;
+                        }
+                    }
+                    if (j <= n) shift = Math.max(stopEarly[j], shift - stopWait[j]);
+                }
+            }
+            return best;
+        }
+
+        /**
+         * insert the customer at the positions found by bestInsertion(), the whole route is scheduled again with breaks,
+         * return the global data of the route, or null if the route cannot take the customer (the route is unchanged then)
+         */
+        public GlobalData insertCustomer(Customer customer, PreProcessData data) {
+            if (customer == null || insertCollectPos < 1) return null;
+
+            // 1. stops after the insertion
+            List<Customer> newStops = new ArrayList<>(stops);
+            newStops.add(insertDeliverPos - 1, customer);
+            newStops.add(insertCollectPos - 1, customer);
+
+            // 2. schedule the stops with breaks as the probes do, the break state is reset after each delivery
+            stagedSize = 0;
+            Vehicle vehicle = getVehicle();
+            long vehicleStartTime = vehicle.getStartTime().getTime();
+            BreakState state = breakState.reset(data.getRegulation(), vehicleStartTime, 0, 0, 0);
+            long overallBreak = 0, dailyDriveTime = 0;
+            int totalDistance = 0;
+            int curSite = vehicle.getStartSite();
+            boolean feasible = true;
+            Set<Long> collected = new HashSet<>();
+            for (Customer stop : newStops) {
+                boolean collect = collected.add(stop.getId());
+                int site = (int) (collect ? stop.getCollectSite().getId() : stop.getDeliverSite().getId());
+                Time window = collect ? stop.getCollectTimeWindow() : stop.getDeliverTimeWindow();
+                long service = (collect ? stop.getCollectTimeinMinutes() : stop.getDeliverTimeinMinutes()) * 60 * 1000L;
+                String jobId = collect ? stop.getCollectId() : stop.getDeliverId();
+                long tmp = state.curTime; // record the current time before update operation
+                long routeTime = travelTime(data, curSite, site);
+
+                // 1) vehicle must arrive within the time window (if earlier, wait; if later, reject the customer)
+                if (state.curTime + routeTime > window.getEnd().getTime()) {
+                    feasible = false;
+                    break;
+                }
+                if (state.curTime + routeTime < window.getStart().getTime()) {
+                    long wait = window.getStart().getTime() - (state.curTime + routeTime);
+                    stageTimeNode(state.curTime, wait, "wait", 0, stop.getId());
+                    state.curTime += wait;
+                }
+                // 2) drive to the site
+                if (site != curSite) {
+                    int routeDistance = data.getDistance(curSite, site);
+                    stageTimeNode(state.curTime, routeTime, "drive", routeDistance, stop.getId());
+                    state.curTime += routeTime;
+                    state.driveTime += routeTime;
+                    dailyDriveTime += routeTime;
+                    totalDistance += routeDistance;
+                    takeBreaks(state, collect ? state.curTime - tmp : state.curTime - vehicleStartTime, stop); // check whether a break is need
+                }
+                if (state.curTime > window.getEnd().getTime()) { // a break taken on arrival delays the service
+                    feasible = false;
+                    break;
+                }
+                // 3) collect/deliver
+                stageTimeNode(state.curTime, service, jobId, 0, stop.getId());
+                state.curTime += service;
+                state.otherTime += service;
+                takeBreaks(state, collect ? state.curTime - tmp : state.curTime - vehicleStartTime, stop); // check whether a break is need
+                if (!collect) {
+                    overallBreak += state.breakTime;
+                    state.breakTime = 0;
+                    state.driveTime = 0;
+                    state.otherTime = 0;
+                }
+                curSite = site;
+                if (overDuty(state, data)) {
+                    feasible = false;
+                    break;
+                }
+            }
+            overallBreak += state.breakTime;
+
+            // 3. check whether the Maximum constraint is met
+            long mDuration = data.getRegulation().getMaxDuty();
+            long mDailyDrive = data.getRegulation().getMaxDailyDrive();
+            if (!feasible || state.curTime - vehicleStartTime > mDuration || dailyDriveTime > mDailyDrive
+                    || !canReturn(data, state.curTime, curSite, dailyDriveTime)) {
+                stagedSize = 0; // keep the route as it was
+                return null;
+            }
+
+            // 4. replace the time nodes of the vehicle
+            vehicle.getTimeline().clear();
+            createStagedTimeNodes();
+
+            // 5. update the route
+            stops = newStops;
+            scheduledStops = -1;
+            getCustomers().add(customer);
+            customer.setDelivered(true);
+            customer.setRouteId(getId());
+            vehicle.setCurSiteId(curSite);
+            setOverallDuration(state.curTime - vehicleStartTime);
+            setOverallDistance(totalDistance);
+            setOverallWeight(getOverallWeight() + customer.getWeight());
+            setOverallBreak(overallBreak);
+            setStartTime(vehicle.getStartTime());
+            setEndTime(new Date(state.curTime));
+
+            // 6. set data into the global 'data', as after adding a customer
+            Site endSite = data.getSite(curSite);
+            data.setCurTime(state.curTime - vehicleStartTime);
+            data.setDeliverSite(endSite);
+            data.setOverallDeliverTime(new Date(state.curTime));
+            routeBreakTime = 0;
+            routeDriveTime = 0;
+            routeOtherTime = 0;
+            return new GlobalData(data.getContext(),
+                    state.curTime - vehicleStartTime,
+                    endSite, overallBreak, new Date(state.curTime),
+                    getId(), newStops.get(newStops.size() - 1).getId(),
+                    dailyDriveTime,
+                    totalDistance);
+        }
+    }
+
+    /**
+     * Individual(chromosome) DTO
+     */
+    protected static class Individual {
+        private long id;
+        private List<Route> routes; // route list
+        private double fitness;
 
         public Individual() {
             this.id = 0;
@@ -3909,8 +4950,8 @@ public class AADS {
             this.fitness = 0.0;
         }
 
-        public Individual(List<Route> routes, double fitness) {
-            this.id = next++;
+        public Individual(SolveContext context, List<Route> routes, double fitness) {
+            this.id = context.nextIndividualId();
             this.routes = routes;
             this.fitness = fitness;
         }
@@ -3956,8 +4997,6 @@ public class AADS {
         private List<Double> pointers; // pointer position of SUS algorithm
         private List<Integer> pointerToIndividual; // list of individuals corresponding to the SUS pointer
 
-        private static int next = 0; // auto-increment id
-
         public Population() {
             this.id = 0;
             this.individuals = new ArrayList<>();
@@ -3967,9 +5006,9 @@ public class AADS {
             this.pointerToIndividual = new ArrayList<>();
         }
 
-        public Population(List<Individual> individuals, int size, double overallFitness,
+        public Population(SolveContext context, List<Individual> individuals, int size, double overallFitness,
                           List<Double> pointers, List<Integer> pointerToIndividual) {
-            this.id = next++;
+            this.id = context.nextPopulationId();
             this.individuals = individuals;
             this.size = size;
             this.overallFitness = overallFitness;
@@ -4034,6 +5073,48 @@ public class AADS {
         }
     }
 
+    /**
+     * Chromosome DTO of the GGA, the customers served by each route form a group
+     */
+    protected static class Chromosome {
+        private List<List<Long>> groups; // customer ids of each group
+        private List<Long> vehicles; // vehicle id of each group
+
+        public Chromosome() {
+            this.groups = new ArrayList<>();
+            this.vehicles = new ArrayList<>();
+        }
+
+        public Chromosome(List<List<Long>> groups, List<Long> vehicles) {
+            this.groups = groups;
+            this.vehicles = vehicles;
+        }
+
+        public void setGroups(List<List<Long>> groups) {
+            this.groups = groups;
+        }
+
+        public List<List<Long>> getGroups() {
+            return groups;
+        }
+
+        public void setVehicles(List<Long> vehicles) {
+            this.vehicles = vehicles;
+        }
+
+        public List<Long> getVehicles() {
+            return vehicles;
+        }
+
+        @Override
+        public String toString() {
+            return "ChromosomeDto{" +
+                    "groups=" + groups.toString() +
+                    ", vehicles=" + vehicles.toString() +
+                    '}';
+        }
+    }
+
     /**
      * Global Data DTO
      */
@@ -4047,8 +5128,8 @@ public class AADS {
         private long dailyDriveTime; // daily drive time
         private int overallDistance; // overall distance
         private long breakTime;
-
-        private static int next = 0; // auto-increment id
+        private long driveTime; // drive time since the last break
+        private long otherTime; // collect/deliver time
 
         public GlobalData() {
             this.id = 0;
@@ -4061,9 +5142,9 @@ public class AADS {
             this.dailyDriveTime = 0;
         }
 
-        public GlobalData(long curTime, Site deliverSite, long breakTime, Date overallDeliverTime,
+        public GlobalData(SolveContext context, long curTime, Site deliverSite, long breakTime, Date overallDeliverTime,
                           long routeId, long customerId, long dailyDriveTime, int overallDistance) {
-            this.id = next++;
+            this.id = context.nextGlobalDataId();
             this.curTime = curTime;
             this.deliverSite = deliverSite;
             this.breakTime = breakTime;
@@ -4142,6 +5223,22 @@ public class AADS {
             return overallDistance;
         }
 
+        public void setDriveTime(long driveTime) {
+            this.driveTime = driveTime;
+        }
+
+        public long getDriveTime() {
+            return driveTime;
+        }
+
+        public void setOtherTime(long otherTime) {
+            this.otherTime = otherTime;
+        }
+
+        public long getOtherTime() {
+            return otherTime;
+        }
+
         @Override
         public String toString() {
             return "GlobalDataDto{" +
@@ -4149,6 +5246,8 @@ public class AADS {
                     "\n curTime=" + curTime +
                     "\n deliverSite=" + deliverSite.toString() +
                     "\n breakTime=" + breakTime +
+                    "\n driveTime=" + driveTime +
+                    "\n otherTime=" + otherTime +
                     "\n overallDeliverTime=" + overallDeliverTime.toString() +
                     "\n routeId=" + routeId +
                     "\n customerId=" + customerId +
@@ -4158,6 +5257,84 @@ public class AADS {
         }
     }
 
+    /**
+     * Context of one solve, holding the ids of every DTO created while solving an instance and the customers
+     * assigned or not assigned so far. Site ids are the indices of the matrices and time ids decide the order
+     * of the output, so each solve owns a context instead of sharing static state, and instances can be solved
+     * in the same JVM. A context belongs to the thread running its solve, except that the probes of the routes may
+     * run in parallel and create GlobalData, so nextGlobalDataId() is synchronized; the other counters and the
+     * customer lists must only be used from the solving thread.
+     */
+    protected static class SolveContext {
+        private final Map<Long, List<Customer>> assignedCustomer = new HashMap<>(); // assigned customers, key=routeId, value=customerList
+        private final List<Customer> unassignedCustomer = new ArrayList<>(); // unassigned customers
+
+        private int nextSiteId;
+        private int nextTimeId;
+        private int nextCustomerId;
+        private int nextRouteId;
+        private int nextIndividualId;
+        private int nextPopulationId;
+        private int nextGlobalDataId;
+        private int nextSucCustomerId;
+
+        public Map<Long, List<Customer>> getAssignedCustomer() {
+            return assignedCustomer;
+        }
+
+        public List<Customer> getUnassignedCustomer() {
+            return unassignedCustomer;
+        }
+
+        public int nextSiteId() {
+            return nextSiteId++;
+        }
+
+        public int nextTimeId() {
+            return nextTimeId++;
+        }
+
+        public int nextCustomerId() {
+            return nextCustomerId++;
+        }
+
+        public int nextRouteId() {
+            return nextRouteId++;
+        }
+
+        public int nextIndividualId() {
+            return nextIndividualId++;
+        }
+
+        public int nextPopulationId() {
+            return nextPopulationId++;
+        }
+
+        public synchronized int nextGlobalDataId() { // probes of the routes may run in parallel
+            return nextGlobalDataId++;
+        }
+
+        public int nextSucCustomerId() {
+            return nextSucCustomerId++;
+        }
+
+        @Override
+        public String toString() {
+            return "SolveContextDto{" +
+                    "assignedCustomer=" + assignedCustomer +
+                    ", unassignedCustomer=" + unassignedCustomer +
+                    ", nextSiteId=" + nextSiteId +
+                    ", nextTimeId=" + nextTimeId +
+                    ", nextCustomerId=" + nextCustomerId +
+                    ", nextRouteId=" + nextRouteId +
+                    ", nextIndividualId=" + nextIndividualId +
+                    ", nextPopulationId=" + nextPopulationId +
+                    ", nextGlobalDataId=" + nextGlobalDataId +
+                    ", nextSucCustomerId=" + nextSucCustomerId +
+                    '}';
+        }
+    }
+
     /**
      * Pre Process Data DTO
      */
@@ -4166,7 +5343,14 @@ public class AADS {
         private List<Site> locationList;
         private List<Vehicle> vehicleList;
         private List<Customer> customerList;
-        private AdjacencyListGraph<Site, Integer> graph; // containing every site
+        private Graph<Site, Integer> graph; // containing every site, null until the first call of getGraph()
+
+        /* dense matrices of all sites, the cell of (from, to) is stored at index 'from * siteCount + to' */
+        private int siteCount; // number of sites
+        private int[] distanceMatrix; // distance between every two sites
+        private int[] timeMatrix; // travel time (unit: s) between every two sites
+        private RegulationProfile regulation; // driving and duty limits of every route
+        private Map<Integer, int[]> returnTimes = new ConcurrentHashMap<>(); // end site -> travel time (unit: s) from every site
 
         /* used for allocating customers */
         private Site deliverSite;
@@ -4177,13 +5361,18 @@ public class AADS {
         private long otherTime;
 
         private Random random; // generate random
+        private SolveContext context; // ids of every DTO created in this solve
 
         public PreProcessData() {
             this.instanceName = "";
             this.locationList = new ArrayList<>();
             this.vehicleList = new ArrayList<>();
             this.customerList = new ArrayList<>();
-            this.graph = new AdjacencyListGraph<>(true);
+            this.graph = null;
+            this.siteCount = 0;
+            this.distanceMatrix = new int[0];
+            this.timeMatrix = new int[0];
+            this.regulation = RegulationProfile.of("EU", 0, 0);
 
             this.deliverSite = new Site();
             this.curTime = 0;
@@ -4192,18 +5381,25 @@ public class AADS {
             this.driveTime = 0;
             this.otherTime = 0;
 
-            this.random = new Random(20717331L); // set student id as seed
+            this.random = new Random(SEED); // set student id as seed
+            this.context = new SolveContext();
         }
 
         public PreProcessData(String instanceName, List<Site> locationList,
                               List<Vehicle> vehicleList, List<Customer> customerList,
-                              AdjacencyListGraph<Site, Integer> graph, Random random) {
+                              Graph<Site, Integer> graph, int siteCount,
+                              int[] distanceMatrix, int[] timeMatrix, Random random, SolveContext context) {
             this.instanceName = instanceName;
             this.locationList = locationList;
             this.vehicleList = vehicleList;
             this.customerList = customerList;
             this.graph = graph;
+            this.siteCount = siteCount;
+            this.distanceMatrix = distanceMatrix;
+            this.timeMatrix = timeMatrix;
+            this.regulation = RegulationProfile.of("EU", 0, 0);
             this.random = random;
+            this.context = context;
         }
 
         public void setInstanceName(String instanceName) {
@@ -4238,14 +5434,64 @@ public class AADS {
             return customerList;
         }
 
-        public void setGraph(AdjacencyListGraph<Site, Integer> graph) {
+        /* get the site by its id, the index of a site in 'locationList' is its id */
+        public Site getSite(int siteId) {
+            return locationList.get(siteId);
+        }
+
+        public synchronized void setGraph(Graph<Site, Integer> graph) {
             this.graph = graph;
         }
 
-        public AdjacencyListGraph<Site, Integer> getGraph() {
+        /* build the graph from the time matrix on first access, so instances not using it pay nothing */
+        public synchronized Graph<Site, Integer> getGraph() {
+            if (graph == null) {
+                graph = buildGraph(locationList, siteCount, timeMatrix);
+            }
             return graph;
         }
 
+        public int getSiteCount() {
+            return siteCount;
+        }
+
+        public int[] getDistanceMatrix() {
+            return distanceMatrix;
+        }
+
+        public int[] getTimeMatrix() {
+            return timeMatrix;
+        }
+
+        public void setRegulation(RegulationProfile regulation) {
+            this.regulation = regulation;
+        }
+
+        public RegulationProfile getRegulation() {
+            return regulation;
+        }
+
+        /* travel time (unit: s) from every site to the end site, the column of 'timeMatrix' is copied on first use */
+        public int[] getReturnTimes(int endSite) {
+            return returnTimes.computeIfAbsent(endSite, end -> {
+                int[] times = new int[siteCount];
+                for (int i = 0; i < siteCount; i++) {
+                    times[i] = i == end ? 0 : timeMatrix[i * siteCount + end];
+                }
+                return times;
+            });
+        }
+
+        /* distance from site 'from' to site 'to' */
+        public int getDistance(int from, int to) {
+            return distanceMatrix[from * siteCount + to];
+        }
+
+        /* travel time (unit: s) from site 'from' to site 'to' */
+        public long getTravelTime(int from, int to) {
+            return timeMatrix[from * siteCount + to];
+        }
+
         public void setDeliverSite(Site deliverSite) {
             this.deliverSite = deliverSite;
         }
@@ -4278,6 +5524,10 @@ public class AADS {
             return random;
         }
 
+        public SolveContext getContext() {
+            return context;
+        }
+
         public void setBreakTime(long breakTime) {
             this.breakTime = breakTime;
         }
@@ -4303,10 +5553,38 @@ public class AADS {
         }
 
         // factory function
-        public static PreProcessData initialize(PreProcessData sourceData) {
-            return new PreProcessData(sourceData.getInstanceName(), sourceData.getLocationList(),
-                    sourceData.getVehicleList(), sourceData.getCustomerList(),
-                    sourceData.getGraph(), sourceData.getRandom());
+        /**
+         * copy the data for an independent solve with its own random and context, the sites, matrices and graph
+         * are read-only and shared, while the vehicles and customers changed by the solver are copied
+         */
+        public PreProcessData copyForSolve(Random random) {
+            SolveContext context = new SolveContext();
+            List<Vehicle> vehicles = new ArrayList<>(vehicleList.size());
+            for (Vehicle v : vehicleList) {
+                vehicles.add(new Vehicle(v.getId(), v.getStartSite(), v.getStartTime(), v.getWeight(), v.getEndSite(),
+                        new Timeline(), v.getCurSiteId()));
+            }
+            List<Customer> customers = new ArrayList<>(customerList.size());
+            for (Customer c : customerList) {
+                // the time windows are created in the same order as preprocessing, so the ids are the same
+                Time collect = c.getCollectTimeWindow(), deliver = c.getDeliverTimeWindow();
+                collect = new Time(context, collect.getStart(), collect.getEnd(), collect.getDuration(),
+                        collect.getJobId(), collect.getDistance(), collect.getVehicleId(), collect.getCustomerId());
+                deliver = new Time(context, deliver.getStart(), deliver.getEnd(), deliver.getDuration(),
+                        deliver.getJobId(), deliver.getDistance(), deliver.getVehicleId(), deliver.getCustomerId());
+                customers.add(new Customer(context, c.getCollectId(), c.getDeliverId(), c.getCollectSite(), c.getDeliverSite(),
+                        collect, deliver, c.getCollectTimeinMinutes(), c.getDeliverTimeinMinutes(), c.getWeight(),
+                        c.isDelivered(), c.getRouteId()));
+            }
+            Graph<Site, Integer> sharedGraph;
+            synchronized (this) {
+                sharedGraph = graph;
+            }
+            PreProcessData data = new PreProcessData(instanceName, locationList, vehicles, customers, sharedGraph,
+                    siteCount, distanceMatrix, timeMatrix, random, context);
+            data.setRegulation(regulation);
+            data.returnTimes = returnTimes; // derived from the shared 'timeMatrix'
+            return data;
         }
     }
 
@@ -4323,8 +5601,6 @@ public class AADS {
         private GlobalData globalData; // global data
         private boolean isReturned; // check whether returned to the depot
 
-        private static int next = 0; // auto-increment id
-
         public SucCustomerDto() {
             this.id = 0;
             this.customer = new Customer();
@@ -4336,10 +5612,10 @@ public class AADS {
             this.isReturned = false;
         }
 
-        public SucCustomerDto(Customer customer, Individual individual, Route route,
+        public SucCustomerDto(SolveContext context, Customer customer, Individual individual, Route route,
                               int individualIdx, int routeIdx, GlobalData globalData,
                               boolean isReturned) {
-            this.id = next++;
+            this.id = context.nextSucCustomerId();
             this.customer = customer;
             this.individual = individual;
             this.route = route;
@@ -4420,14 +5696,14 @@ public class AADS {
         }
     }
 
-    protected static Map<Long, List<Customer>> assignedCustomer = new HashMap<>(); // assigned customers, key=routeId, value=customerList
-    protected static List<Customer> unassignedCustomer = new ArrayList<>(); // unassigned customers
+    protected static final int PARALLEL_SCAN_ROUTES = 50; // fewer candidate routes are scanned on the calling thread
 
     protected static Tuple<List<Individual>, Map<Integer, SucCustomerDto>> assignCustomers(
             List<Individual> individuals, PreProcessData data, boolean method,
             Map<Integer, SucCustomerDto> sucCustomers, List<Customer> customerList) {
         Tuple<List<Individual>, Map<Integer, SucCustomerDto>> res;
         Map<Integer, SucCustomerDto> tmp = sucCustomers;
+        List<Customer> unassignedCustomer = data.getContext().getUnassignedCustomer(); // unassigned customers of this solve
 
         // 1. for each customer to insert, check all feasible insertion points for all existing routes in the current solution
         //    test all possible insertion positions for collect and delivery nodes in routes, taking into account priority, capacity and time constraints
@@ -4467,7 +5743,7 @@ public class AADS {
                         unassignedCustomer.add(customer);
                     } else {
                         // construct the DTO
-                        SucCustomerDto dto = new SucCustomerDto(customer, bestIndividual, bestRoute, individualIdx, routeIdx, globalData, false);
+                        SucCustomerDto dto = new SucCustomerDto(data.getContext(), customer, bestIndividual, bestRoute, individualIdx, routeIdx, globalData, false);
                         tmp.put((int) bestRoute.getId(), dto);
                         // update properties like fitness
                         double newFitness = bestRoute.getOverallDuration() / (1000 * 60 * 60.0);
@@ -4524,7 +5800,7 @@ public class AADS {
                         unassignedCustomer.add(customer);
                     } else {
                         // construct the DTO
-                        SucCustomerDto dto = new SucCustomerDto(customer, bestIndividual, bestRoute, individualIdx, routeIdx, globalData, false);
+                        SucCustomerDto dto = new SucCustomerDto(data.getContext(), customer, bestIndividual, bestRoute, individualIdx, routeIdx, globalData, false);
                         tmp.put((int) bestRoute.getId(), dto);
                         // update properties like fitness
                         double newFitness = bestRoute.getOverallDuration() / (1000 * 60 * 60.0);
@@ -4539,33 +5815,83 @@ public class AADS {
                 }
             }
         } else { // based on the order, traverse all requesting customers and allocate them to their suitable routes
+            // candidate routes in scan order, with their individuals
+            List<Route> candidates = new ArrayList<>();
+            List<Individual> candidateIndividuals = new ArrayList<>();
+            for (Individual individual : individuals) {
+                for (Route r : individual.getRoutes()) {
+                    candidates.add(r);
+                    candidateIndividuals.add(individual);
+                }
+            }
+            long[] costs = new long[candidates.size()];
+            GlobalData[] appended = new GlobalData[candidates.size()]; // results of the probes, null if rejected
+
             // 1. traverse each customer
             for (Customer customer : customerList) {
+                // 0. best insertion: positions inside a route are taken when they cost less than appending to any route
+                if (customer != null && !customer.isDelivered()) {
+                    // 1) score the routes, a scan only changes the route it scores, so large fleets are scanned in parallel
+                    IntStream scan = IntStream.range(0, costs.length);
+                    if (costs.length >= PARALLEL_SCAN_ROUTES) scan = scan.parallel();
+                    scan.forEach(k -> costs[k] = candidates.get(k).bestInsertion(customer, data));
+                    // 2) reduce in scan order, the earlier route wins a tie
+                    long insertMin = Long.MAX_VALUE, appendMin = Long.MAX_VALUE;
+                    Route insertRoute = null;
+                    Individual insertIndividual = null;
+                    for (int k = 0; k < costs.length; k++) {
+                        if (costs[k] < insertMin) {
+                            insertMin = costs[k];
+                            insertRoute = candidates.get(k);
+                            insertIndividual = candidateIndividuals.get(k);
+                        }
+                        appendMin = Math.min(appendMin, candidates.get(k).getAppendCost());
+                    }
+                    if (insertRoute != null && insertMin < appendMin) {
+                        GlobalData inserted = insertRoute.insertCustomer(customer, data); // insert
+                        if (inserted != null) {
+                            // construct the DTO with the last customer of the route
+                            List<Customer> stops = insertRoute.getStops();
+                            SucCustomerDto dto = new SucCustomerDto(data.getContext(), stops.get(stops.size() - 1),
+                                    insertIndividual, insertRoute, individuals.indexOf(insertIndividual),
+                                    (int) insertRoute.getId(), inserted, false);
+                            tmp.put((int) insertRoute.getId(), dto);
+                            // update properties like fitness
+                            insertIndividual.setFitness(insertRoute.getOverallDuration() / (1000 * 60 * 60.0));
+                            continue;
+                        }
+                    }
+                }
+
                 long min = Long.MAX_VALUE; // initialize
                 Route bestRoute = null;
                 Individual bestIndividual = null;
                 int routeIdx = -1, individualIdx = -1;
                 GlobalData globalData = new GlobalData();
                 boolean flag = false; // check whether it can be allocated
-                // traverse each route in the individual
-                for (Individual individual : individuals) {
-                    for (Route r : individual.getRoutes()) {
-                        if (customer != null && customer.isDelivered())
-                            continue; // if it has been allocated, just continue
-                        Tuple<Boolean, GlobalData> canAdd = r.canAddACustomerByCombination(customer, data); // try to add
-                        if (canAdd != null && canAdd.getFirst()) {
-                            long cost = canAdd.getSecond().getCurTime();
-                            if (cost < min) { // if it can be added and its cost is the optimal
-                                min = cost;
-                                bestRoute = r;
-                                bestIndividual = individual;
-                                individualIdx = individuals.indexOf(individual);
-                                routeIdx = (int) bestRoute.getId();
-                                globalData = canAdd.getSecond();
-                                // allocated successful
-                                flag = true;
-                            }
+                // traverse each route in the individual (a probe only stages time nodes in its own route)
+                if (customer == null || !customer.isDelivered()) { // if it has been allocated, just continue
+                    IntStream probe = IntStream.range(0, costs.length);
+                    if (costs.length >= PARALLEL_SCAN_ROUTES) probe = probe.parallel();
+                    probe.forEach(k -> {
+                        Tuple<Boolean, GlobalData> canAdd = candidates.get(k).canAddACustomerByCombination(customer, data); // try to add
+                        appended[k] = canAdd != null && canAdd.getFirst() ? canAdd.getSecond() : null;
+                    });
+                }
+                for (int k = 0; k < costs.length; k++) {
+                    if (appended[k] != null) {
+                        long cost = appended[k].getCurTime() - candidates.get(k).getOverallDuration(); // increase of the duration
+                        if (cost < min) { // if it can be added and its cost is the optimal
+                            min = cost;
+                            bestRoute = candidates.get(k);
+                            bestIndividual = candidateIndividuals.get(k);
+                            individualIdx = individuals.indexOf(bestIndividual);
+                            routeIdx = (int) bestRoute.getId();
+                            globalData = appended[k];
+                            // allocated successful
+                            flag = true;
                         }
+                        appended[k] = null;
                     }
                 }
 
@@ -4580,7 +5906,7 @@ public class AADS {
                         unassignedCustomer.add(customer);
                     } else {
                         // construct the DTO
-                        SucCustomerDto dto = new SucCustomerDto(customer, bestIndividual, bestRoute, individualIdx, routeIdx, globalData, false);
+                        SucCustomerDto dto = new SucCustomerDto(data.getContext(), customer, bestIndividual, bestRoute, individualIdx, routeIdx, globalData, false);
                         tmp.put((int) bestRoute.getId(), dto);
                         // update properties like fitness
                         double newFitness = bestRoute.getOverallDuration() / (1000 * 60 * 60.0);
@@ -4601,36 +5927,83 @@ public class AADS {
     }
 
     /**
-     * remove time nodes related to deleted customers from the time list
+     * Ruin and recreate: the jobs of each unassigned request are removed from the route holding them, the routes
+     * are cleared and only their other requests are inserted again, the removed requests are left to step 7
      */
-    protected static List<Time> removeRelatedTime(List<Time> sourceList, int customerId) {
-        List<Time> res = new ArrayList<>();
-        if (sourceList != null) {
-            for (Time time : sourceList) {
-                if (time.getCustomerId() != customerId) { // the Time corresponding to the deleted request is not added to the new list
-                    res.add(time);
+    protected static Tuple<List<Individual>, Map<Integer, SucCustomerDto>> ruinAndRecreate(
+            List<Individual> individuals, PreProcessData data, Map<Integer, SucCustomerDto> sucCustomers) {
+        Map<Long, List<Customer>> assignedCustomer = data.getContext().getAssignedCustomer(); // key=routeId, value=customerList
+        List<Customer> unassignedCustomer = data.getContext().getUnassignedCustomer();
+
+        // 1. index the routes by id, and the route holding each assigned request
+        Map<Long, Route> routeIndex = new HashMap<>();
+        for (Individual individual : individuals) {
+            for (Route route : individual.getRoutes()) routeIndex.put(route.getId(), route);
+        }
+        Map<Long, Long> routeOfCustomer = new HashMap<>(); // key=customerId, value=routeId
+        for (Entry<Long, List<Customer>> entry : assignedCustomer.entrySet()) {
+            for (Customer assigned : entry.getValue()) routeOfCustomer.put(assigned.getId(), entry.getKey());
+        }
+
+        // 2. ruin: remove the unassigned requests (the list may hold one more than once) and mark their routes
+        Set<Long> removed = new HashSet<>();
+        Set<Long> ruined = new LinkedHashSet<>(); // route ids, in order of the unassigned requests
+        for (Customer unassigned : unassignedCustomer) {
+            if (!removed.add(unassigned.getId())) continue;
+            Long routeId = routeOfCustomer.get(unassigned.getId());
+            if (routeId != null) ruined.add(routeId);
+        }
+        if (ruined.isEmpty()) return new InnerTuple<>(individuals, sucCustomers);
+
+        // 3. clear the ruined routes and their vehicles, keeping the other requests in their order
+        List<Customer> reinserted = new ArrayList<>();
+        Set<Long> kept = new HashSet<>();
+        for (long routeId : ruined) {
+            Route route = routeIndex.get(routeId);
+            if (route == null) continue;
+            for (Customer customer : route.getCustomers()) {
+                if (!removed.contains(customer.getId()) && kept.add(customer.getId())) {
+                    customer.setDelivered(false); // otherwise it is skipped by assignCustomers()
+                    customer.setRouteId(-1);
+                    reinserted.add(customer);
                 }
             }
-        }
-        return res;
+            route.setCustomers(new ArrayList<>());
+            route.setEndTime(new Date());
+            route.setStartTime(new Date());
+            route.setOverallBreak(0);
+            route.setOverallDistance(0);
+            route.setOverallDuration(0);
+            route.setOverallWeight(0);
+            Vehicle vehicle = route.getVehicle(); // do not reset the vehicle and randN, only its time nodes
+            vehicle.getTimeline().clear();
+            vehicle.setCurSiteId(vehicle.getStartSite());
+            assignedCustomer.remove(routeId);
+            sucCustomers.remove((int) routeId);
+        }
+
+        // 4. recreate: insert the kept requests into any route, each with its collect and delivery
+        data.setOverallDeliverTime(new Date());
+        Tuple<List<Individual>, Map<Integer, SucCustomerDto>> res =
+                assignCustomers(individuals, data, true, sucCustomers, reinserted);
+        return res != null ? res : new InnerTuple<>(individuals, sucCustomers);
     }
 
     protected static List<Individual> initialIndividualsByLargeData(List<Individual> individuals, int nPop,
                                                                     int len, Random random, PreProcessData data) {
         for (int i = 0; i < nPop; i++) {
             List<Route> routeList = new ArrayList<>();
-            Collections.shuffle(data.getVehicleList(), random); // shuffle randomly with specific seed
             for (int j = 0; j < len; j++) {
                 // 1. use j as the index to get the vehicle (each time get the first vehicle as the vehicle for the new route to be created)
                 Vehicle vehicle = data.getVehicleList().get(j);
                 // 2. create a new route(CustomerList is empty) and randomly allocate a vehicle
-                Route newRoute = new Route(vehicle,
+                Route newRoute = new Route(data.getContext(), vehicle,
                         new ArrayList<>(), new Date(), new Date(),
                         0, 0, 0, 0, j, new HashMap<>());
                 routeList.add(newRoute);
             }
             // 3. create an individual and set route list(fitness equals to zero at first)
-            Individual individual = new Individual(routeList, 0.0);
+            Individual individual = new Individual(data.getContext(), routeList, 0.0);
             individuals.add(individual);
         }
         return individuals;
@@ -4646,13 +6019,13 @@ public class AADS {
                 // 1. use j as the index to get the vehicle (each time get the first vehicle as the vehicle for the new route to be created)
                 Vehicle vehicle = data.getVehicleList().get(j);
                 // 2. create a new route(CustomerList is empty) and randomly allocate a vehicle
-                Route newRoute = new Route(vehicle,
+                Route newRoute = new Route(data.getContext(), vehicle,
                         new ArrayList<>(), new Date(), new Date(),
                         0, 0, 0, 0, j, new HashMap<>());
                 routeList.add(newRoute);
             }
             // 3. create an individual and set route list(fitness equals to zero at first)
-            Individual individual = new Individual(routeList, 0.0);
+            Individual individual = new Individual(data.getContext(), routeList, 0.0);
             individuals.add(individual);
         }
         return individuals;
@@ -4704,15 +6077,14 @@ public class AADS {
         individuals.get(0).setFitness(sum / (1000.0 * 60 * 60)); // units: h
     }
 
-    // global data to reallocate customers that can be successfully allocated
-    protected static PreProcessData tmpData = new PreProcessData();
-
     /**
      * Initialize the population with the Greedy Algorithm
      */
     protected static Population initializePopulationWithGreedy(PreProcessData data, int nPop) {
         // 1. initialization
-        Population population = new Population(new ArrayList<>(), nPop, 0.0,
+        Map<Long, List<Customer>> assignedCustomer = data.getContext().getAssignedCustomer(); // key=routeId, value=customerList
+        List<Customer> unassignedCustomer = data.getContext().getUnassignedCustomer();
+        Population population = new Population(data.getContext(), new ArrayList<>(), nPop, 0.0,
                 new ArrayList<>(), new ArrayList<>());
         List<Individual> individuals = new ArrayList<>(nPop); // maximum number of individuals are 200
         Random random = data.getRandom(); // use studentID as the seed for the random number generator
@@ -4745,135 +6117,11 @@ public class AADS {
             }
         }
 
-        // 5. process 'assignedCustomer'
+        // 5. repair the requests that were only partly assigned, by removing them and inserting their routes again
         if (!unassignedCustomer.isEmpty()) {
-            List<Customer> rewritableList = new CopyOnWriteArrayList<>(); // store customers to be reassigned later
-            List<Integer> routeIdxs = new ArrayList<>(); // store the index of routes that will be removed
-
-            // 1)delete the customer (delivery/pickup) corresponding to the request (pickup/delivery) that was not successfully assigned
-            for (Customer unassigned : unassignedCustomer) {
-                if (!sucCustomers.isEmpty()) { // there is a customer allocated
-                    // Only the last customer would be added into the 'sucCustomers'
-                    // find the collect/deliver jobs corresponding to current traverse customer from the 'sucCustomers',
-                    // then remove those collect/deliver jobs that had been added
-                    for (Entry<Long, List<Customer>> entry : assignedCustomer.entrySet()) {
-                        long routeIdx = entry.getKey(); // obtain the index of each route
-
-                        // traverse the customer list to find all customers stored in the list
-                        List<Customer> list = entry.getValue();
-                        rewritableList = new CopyOnWriteArrayList<>(list);
-                        for (Customer assigned : rewritableList) {
-                            if (assigned.getId() == unassigned.getId()) {
-                                // get the subscript of the requested customer to be removed in the 'assigned'
-                                int removedIdx = rewritableList.indexOf(assigned);
-
-                                // remove assigned from the assignedCustomer
-                                rewritableList.remove(assigned);
-
-                                // if it will remove the last customer, the last one after removing will become the DTO
-                                // replacing the DTO of the current route in the 'sucCustomers' list
-                                SucCustomerDto dto = sucCustomers.get((int) routeIdx);
-                                // if the DTO is not null, keep going
-                                if (dto != null) {
-                                    // 1. get the latest customer in 'SucCustomerDto'    [get the latest job after removing]
-                                    Customer newLastCus = rewritableList.get(rewritableList.size() - 1);
-
-                                    // 2. assign the updated route
-                                    Route newRoute = dto.getRoute();
-                                    List<Customer> customers = newRoute.getCustomers();
-                                    // 2-1.remove the corresponding assigned customer
-                                    customers.remove(assigned);
-                                    // 2-2.update the customer list back to the route
-                                    newRoute.setCustomers(customers);
-                                    // 2-3.remove every time node related to removed customer
-                                    List<Time> driveList = newRoute.getVehicle().getDriveTimeList();
-                                    List<Time> breakList = newRoute.getVehicle().getBreakTimeList();
-                                    List<Time> otherList = newRoute.getVehicle().getOtherTimeList();
-                                    List<Time> delayList = newRoute.getVehicle().getDelayTimeList();
-                                    List<Time> waitList = newRoute.getVehicle().getWaitTimeList();
-                                    driveList = removeRelatedTime(driveList, removedIdx);
-                                    breakList = removeRelatedTime(breakList, removedIdx);
-                                    otherList = removeRelatedTime(otherList, removedIdx);
-                                    delayList = removeRelatedTime(delayList, removedIdx);
-                                    waitList = removeRelatedTime(waitList, removedIdx);
-                                    newRoute.getVehicle().setDriveTimeList(driveList);
-                                    newRoute.getVehicle().setBreakTimeList(breakList);
-                                    newRoute.getVehicle().setOtherTimeList(otherList);
-                                    newRoute.getVehicle().setDelayTimeList(delayList);
-                                    newRoute.getVehicle().setWaitTimeList(waitList);
-
-                                    // 3.get the latest individual in 'SucCustomerDto'
-                                    Individual individual = dto.getIndividual();
-                                    // 3-1.update the route of this individual
-                                    List<Route> routes = individual.getRoutes();
-                                    for (Route route : routes) {
-                                        if (route.getId() == routeIdx) { // find the currently processed route, set the 'newRoute'
-                                            routes.set((int) routeIdx, newRoute);
-                                        }
-                                    }
-                                    individual.setRoutes(routes);
-
-                                    // 4.construct a new dto
-                                    SucCustomerDto newDto = new SucCustomerDto(newLastCus, individual,
-                                            newRoute, dto.getIndividualIdx(), (int) routeIdx, dto.getGlobalData(), false);
-                                    sucCustomers.put((int) routeIdx, newDto); // replace the old route with an index of 'routeIdx'
-
-                                    // 5.update the routeIdx
-                                    routeIdxs.add(dto.getRouteIdx());
-                                }
-                            }
-                        }
-
-                        // De-duplicate 'rewritableList'
-                        List<Customer> deDuplicated = new CopyOnWriteArrayList<>();
-                        for (Customer customer : rewritableList) {
-                            if (!deDuplicated.contains(customer)) deDuplicated.add(customer);
-                        }
-                        rewritableList = deDuplicated;
-                    }
-                }
-            }
-
-            // 2)initialize the individual list, reassign customers that had been successful added
-            List<Route> routes = individuals.get(0).getRoutes(); // current size of the population is 1
-            for (int idx : routeIdxs) {
-                // initialize the route
-                for (Route route : routes) {
-                    if (idx == route.getId()) {
-                        route.setCustomers(new ArrayList<>());
-                        route.setEndTime(new Date());
-                        route.setStartTime(new Date());
-                        route.setOverallBreak(0);
-                        route.setOverallDistance(0);
-                        route.setOverallDuration(0);
-                        route.setOverallWeight(0);
-                        // do not reset the vehicle and randN
-                    }
-                }
-                individuals.get(0).setRoutes(routes);
-                // initialize the list of successfully assigned customers
-                sucCustomers = new HashMap<>();
-                // initialize the global data 'data'
-                data = PreProcessData.initialize(tmpData);
-                for (int i = 0; i < data.getVehicleList().size(); i++) {
-                    Vehicle vehicle = data.getVehicleList().get(i);
-                    vehicle.setDriveTimeList(new ArrayList<>());
-                    vehicle.setBreakTimeList(new ArrayList<>());
-                    vehicle.setOtherTimeList(new ArrayList<>());
-                    vehicle.setDelayTimeList(new ArrayList<>());
-                    vehicle.setWaitTimeList(new ArrayList<>());
-                    vehicle.setCurSiteId(vehicle.getStartSite());
-                    data.getVehicleList().set(i, vehicle);
-                }
-                data = tmpData; // global data is only readable, except in the main function
-                data.setOverallDeliverTime(new Date());
-                // reinsert customers that assigned successfully(order by customers)
-                res = assignCustomers(individuals, data, true, sucCustomers, rewritableList); // the third parameter means the control of different allocation modes
-                if (res != null) {
-                    individuals = res.getFirst(); // individual list
-                    sucCustomers = res.getSecond(); // successful customers
-                }
-            }
+            res = ruinAndRecreate(individuals, data, sucCustomers);
+            individuals = res.getFirst(); // individual list
+            sucCustomers = res.getSecond(); // successful customers
         }
 
         // 6. add a return route for each successful allocated route
@@ -4895,24 +6143,33 @@ public class AADS {
                     // choose a free vehicle for the new route
                     Vehicle newV = new Vehicle();
                     for (Vehicle v : data.getVehicleList()) {
-                        if (v.getDriveTimeList().isEmpty() && v.getBreakTimeList().isEmpty()
-                                && v.getOtherTimeList().isEmpty() && v.getWaitTimeList().isEmpty()
-                                && v.getDelayTimeList().isEmpty()) {
+                        if (v.getTimeline().isEmpty()) {
                             newV = v;
                             break;
                         }
                     }
-                    // create a new route
-                    Route newR = new Route(newV, new ArrayList<>(), new Date(), new Date(),
-                            0, 0, 0, 0,
-                            individual.getRoutes().get(0).getRandN() + 1, new HashMap<>());
-                    // set new route
-                    List<Route> newRoutes = individual.getRoutes();
-                    newRoutes.add(newR);
-                    // set new routes to the individual
-                    individual.setRoutes(newRoutes);
-                    // update the individual
-                    individuals.set(individuals.indexOf(individual), individual);
+                    // an empty route of the vehicle is used again (the customer may have been inserted into
+                    // another route), two routes must not share a vehicle
+                    Route emptyR = null;
+                    for (Route r : individual.getRoutes()) {
+                        if (r.getVehicle() == newV && r.getCustomers().isEmpty()) {
+                            emptyR = r;
+                            break;
+                        }
+                    }
+                    if (emptyR == null) {
+                        // create a new route
+                        Route newR = new Route(data.getContext(), newV, new ArrayList<>(), new Date(), new Date(),
+                                0, 0, 0, 0,
+                                individual.getRoutes().get(0).getRandN() + 1, new HashMap<>());
+                        // set new route
+                        List<Route> newRoutes = individual.getRoutes();
+                        newRoutes.add(newR);
+                        // set new routes to the individual
+                        individual.setRoutes(newRoutes);
+                        // update the individual
+                        individuals.set(individuals.indexOf(individual), individual);
+                    }
 
                     // assign to the new route
                     Tuple<List<Individual>, Map<Integer, SucCustomerDto>> res2 =
@@ -4955,66 +6212,52 @@ public class AADS {
     }
 
     /**
-     * Selection part of the GGA
+     * Selection part of the GGA, the stochastic universal sampling (SUS) of two parents by rank,
+     * the individuals are sorted by fitness and the i-th one has a weight of N - i
      */
     protected static List<Individual> selection(PreProcessData data, Population population) {
         List<Individual> res = new ArrayList<>();
 
         if (population != null) {
             List<Individual> individuals = population.getIndividuals();
-            if (individuals != null) {
-                // 1. compute distance between pointers
-                double F = population.getOverallFitness();
-                int N = population.getIndividuals().size();
-                double P = F / (N * 1.0);
-
-                // 2. randomly create the starting pointer position
-                Random random = data.getRandom();
-                if (random != null) {
-                    int start = random.nextInt((int) Math.floor(P) + 1); // [0, P)
-
-                    // 3. compute each pointer's position
-                    List<Double> pointers = new ArrayList<>();
-                    for (int i = 0; i < N; i++) {
-                        pointers.add(start + i * P);
-                    }
-                    population.setPointers(pointers);
-
-                    // 4. calculate the accumulated sum of each individual's fitness and the fitness of all previous individuals
-                    List<Double> sumFitness = new ArrayList<>();
-                    sumFitness.add(population.getIndividuals().get(0).getFitness()); // first element
-                    // each value = current value + accumulated value in the last position
-                    for (int i = 1; i < N; i++) {
-                        double sum = population.getIndividuals().get(i).getFitness() + sumFitness.get(i - 1);
-                        sumFitness.add(sum);
-                    }
+            if (individuals != null && !individuals.isEmpty()) {
+                int N = individuals.size();
+                // 1. if there is only one, then this individual is both parent
+                if (N < 2) {
+                    res.add(individuals.get(0));
+                    res.add(individuals.get(0));
+                    return res;
+                }
 
-                    // 5. find the individual according to the pointer
-                    List<Integer> selectedIndividual = new ArrayList<>();
-                    int i = 0, j = 0; // for traversal
-                    while (i < N && j < N) {
-                        if (pointers.get(j) <= sumFitness.get(i)) {
-                            selectedIndividual.add(i); // add eligible positions to the list
-                            j++; // go to next pointer
-                        } else {
-                            i++; // go to next real fitness
-                        }
-                    }
+                // 2. compute distance between two pointers
+                double F = N * (N + 1) / 2.0; // overall weight
+                double P = F / 2;
 
-                    // 6. get two individuals with the largest fitness
-                    if (N < 2) { // if there is only one, then this individual is both parent
-                        Individual individual = population.getIndividuals().get(N - 1);
-                        res.add(individual);
-                        res.add(individual);
-                    } else { // select individual with the highest fitness
-                        // sort all individuals in descending order according to fitness
-                        population.getIndividuals().sort((i1, i2) -> Double.compare(i2.getFitness(), i1.getFitness()));
-                        Individual first = population.getIndividuals().get(0);
-                        Individual second = population.getIndividuals().get(1);
-                        res.add(first);
-                        res.add(second);
+                // 3. randomly create the starting pointer position in [0, P), and compute each pointer's position
+                Random random = data.getRandom();
+                double start = random.nextDouble() * P;
+                List<Double> pointers = new ArrayList<>();
+                pointers.add(start);
+                pointers.add(start + P);
+                population.setPointers(pointers);
+
+                // 4. find the individual according to the pointer, by the accumulated weight
+                List<Integer> selectedIndividual = new ArrayList<>();
+                double sumWeight = 0.0;
+                int i = 0, j = 0; // for traversal
+                while (i < N && j < pointers.size()) {
+                    if (pointers.get(j) < sumWeight + (N - i)) {
+                        selectedIndividual.add(i); // add eligible positions to the list
+                        j++; // go to next pointer
+                    } else {
+                        sumWeight += N - i;
+                        i++; // go to next individual
                     }
                 }
+                population.setPointerToIndividual(selectedIndividual);
+                for (int idx : selectedIndividual) {
+                    res.add(individuals.get(idx));
+                }
             } else {
                 System.out.println("There are not individuals in the population.");
             }
@@ -5025,22 +6268,21 @@ public class AADS {
     }
 
     /**
-     * Crossover part of the GGA
+     * Crossover part of the GGA, each child is a parent with a section of the groups of the other parent injected
      */
-    protected static List<Individual> crossover(PreProcessData data, Population population, Double pCross, List<Individual> parents) {
-        List<Individual> res = new ArrayList<>();
+    protected static List<Chromosome> crossover(PreProcessData data, Population population, Double pCross, List<Individual> parents) {
+        List<Chromosome> res = new ArrayList<>();
 
         if (population != null) {
-            int N = parents.get(1).getRoutes().size();
-            if (parents != null && !parents.isEmpty()) {
+            if (parents != null && parents.size() >= 2) {
                 Random random = data.getRandom();
-                if (random != null) {
-//                    // 1. randomly create two crossover point
-//                    int point1=0,point2=0;
-//                    while(point1==point2){
-//                        point1=random.nextInt(N);
-//                         point2=random.nextInt(N);
-//                    }
+                Chromosome x = encode(parents.get(0)), y = encode(parents.get(1));
+                if (random.nextDouble() < pCross) {
+                    res.add(inject(x, y, random));
+                    res.add(inject(y, x, random));
+                } else { // the children are the same as the parents
+                    res.add(x);
+                    res.add(y);
                 }
             } else {
                 System.out.println("Parents are empty.");
@@ -5052,405 +6294,1166 @@ public class AADS {
     }
 
     /**
-     * Implementation of the GGA algorithm
+     * inject a random section of the groups of y into a random crossing point of x, the groups of x sharing customers
+     * with the section are eliminated, and their other customers are left to be reinserted by the decoding
      */
-    protected static Individual GGA(PreProcessData data) throws IllegalArgumentException {
-        /**
-         * Individual: arrange of each vehicle
-         * Population: all vehicles composing a scheduling plan
-         * Fitness: the time needed to finish all the customers
-         */
-        // 1. parameters
-        int nPop = 1; // size of population(number of individuals in the population)
-        double pCross = 1.0; // crossover probability
-        double pMut = 0.5; // mutation probability
-        int nMax = 15000; // maximum number of individual
-        int nMaxWithoutImprovement = 3000; // unimproved maximum number of individual
-        Individual bestIndividual = new Individual(); // best individual
-
-        // 2. initialize the population P
-        Population population = initializePopulationWithGreedy(data, nPop);
-
-        // 3. set the iteration termination condition
-        int termination = 0;
-
-        // 4. loop if it does not meet the termination condition
-        while (termination <= nMaxWithoutImprovement) {
-            // 1)selection: according to the fitness, select a pair of individuals x and y from P as parents
-//            List<Individual> parents = selection(data, population);
-//            Individual x = new Individual(), y = new Individual();
-//            if (!parents.isEmpty()) {
-//                x = parents.get(0);
-//                y = parents.get(1);
-//            }
-//
-            // 2)crossover: apply the crossover operator to x and y with probability pCross to generate two offspring x', y'
-//            List<Individual> children = crossover(data, population, pCross, parents);
-//
-            // 3)mutation: apply the mutation operator to x' and y' with probability pMut to generate two modified offspring x'', y'' respectively
-//            mutation();
-//
-            // 4)update the population P: insert x'' and y'' into P, removing the two worst individuals from P accordingly
-//            updatePopulation();
-
-            // 5)update the value of the termination condition
-            termination++;
+    protected static Chromosome inject(Chromosome x, Chromosome y, Random random) {
+        List<List<Long>> groups = new ArrayList<>();
+        List<Long> vehicles = new ArrayList<>();
+        int size = y.getGroups().size();
+        int start = size == 0 ? 0 : random.nextInt(size);
+        int end = size == 0 ? 0 : start + 1 + random.nextInt(size - start);
+        Set<Long> injected = new HashSet<>();
+        for (int i = start; i < end; i++) {
+            injected.addAll(y.getGroups().get(i));
+        }
+
+        int point = random.nextInt(x.getGroups().size() + 1); // crossing point
+        for (int i = 0; i <= x.getGroups().size(); i++) {
+            if (i == point) {
+                for (int j = start; j < end; j++) {
+                    groups.add(new ArrayList<>(y.getGroups().get(j)));
+                    vehicles.add(y.getVehicles().get(j));
+                }
+            }
+            if (i < x.getGroups().size() && Collections.disjoint(x.getGroups().get(i), injected)) {
+                groups.add(new ArrayList<>(x.getGroups().get(i)));
+                vehicles.add(x.getVehicles().get(i));
+            }
         }
-
-        // 5. get the best individual from the population
-        bestIndividual = population.getIndividuals().get(0); // default: first individual
-        return bestIndividual;
+        return new Chromosome(groups, vehicles);
     }
 
-    protected static String formatDate(double time, String type) throws ParseException {
-        String res = "";
-        Date date = new Date((long) time);
+    /**
+     * Mutation part of the GGA, each child is mutated with probability pMut by eliminating a group,
+     * moving a customer to another group, or exchanging the vehicles of two groups
+     */
+    protected static void mutation(PreProcessData data, List<Chromosome> children, double pMut) {
+        Random random = data.getRandom();
+        for (Chromosome child : children) {
+            List<List<Long>> groups = child.getGroups();
+            List<Long> vehicles = child.getVehicles();
+            if (groups.isEmpty() || random.nextDouble() >= pMut) continue;
+
+            int i = random.nextInt(groups.size()), j = random.nextInt(groups.size());
+            switch (random.nextInt(3)) {
+                case 0: // eliminate a group, its customers are reinserted at last
+                    groups.remove(i);
+                    vehicles.remove(i);
+                    break;
+                case 1: // move a customer to another group
+                    List<Long> from = groups.get(i), to = groups.get(j);
+                    Long customerId = from.remove(random.nextInt(from.size()));
+                    to.add(random.nextInt(to.size() + 1), customerId);
+                    if (from.isEmpty()) {
+                        groups.remove(i);
+                        vehicles.remove(i);
+                    }
+                    break;
+                default: // exchange the vehicles of two groups
+                    Collections.swap(vehicles, i, j);
+                    break;
+            }
+        }
+    }
 
-        if (type.equals("H'h'm'm'")) {
-            int hours = (int) (time / (60 * 60 * 1000));
-            int minutes = (int) ((time % (60 * 60 * 1000)) / (60 * 1000)); // remaining minutes
+    /**
+     * Replacement part of the GGA, each decoded child better than the worst individual replaces it unless the
+     * same fitness is already in the population, return whether the best individual is improved
+     */
+    protected static boolean updatePopulation(PreProcessData data, Population population, List<Chromosome> children) {
+        List<Individual> individuals = population.getIndividuals(); // in ascending order of fitness
+        double best = individuals.get(0).getFitness();
+        for (Chromosome child : children) {
+            Individual individual = decode(data, child);
+            boolean duplicate = false;
+            for (Individual other : individuals) {
+                if (other.getFitness() == individual.getFitness()) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (duplicate) continue;
 
-            String h = hours < 10 ? "" + hours : String.valueOf(hours);
-            String m = minutes < 10 ? "" + minutes : String.valueOf(minutes);
-            res += h + "h" + m + "m";
-        } else if (type.equals("HH:mm")) {
-            SimpleDateFormat sdf = new SimpleDateFormat("HH:mm");
-            res = sdf.format(date);
-        } else if (type.equals("extract")) { // extract hours and minutes
-            Calendar calendar = Calendar.getInstance();
-            calendar.setTime(date);
-            res += calendar.get(Calendar.HOUR_OF_DAY) + "h" + calendar.get(Calendar.MINUTE) + "m";
+            if (individuals.size() < population.getSize()) {
+                individuals.add(individual);
+            } else if (individual.getFitness() < individuals.get(individuals.size() - 1).getFitness()) {
+                individuals.set(individuals.size() - 1, individual); // replace the worst one
+            } else {
+                continue;
+            }
+            individuals.sort(Comparator.comparingDouble(Individual::getFitness));
         }
-        return res;
-    }
 
-    protected static void getOutput(Individual bestIndividual) throws ParseException {
-        if (bestIndividual != null) {
-            // 1. output the header of the table
-            System.out.println("VehicleName,JobId,JourneyTime,ArrivalTime,WaitTime," +
-                    "DelayTime,ServiceTime,DepartureTime,Break1Time,Break1Duration," +
-                    "Break2Time,Break2Duration,Distance,SequenceNo");
-
-            List<Long> cusId = new ArrayList<>();
-
-            // 2. get time nodes from each route
-            for (Route route : bestIndividual.getRoutes()) {
-                StringBuilder output = new StringBuilder(); // final output
-
-                // 1)get five time lists
-                List<Time> driveTimeList = route.getVehicle().getDriveTimeList();
-                List<Time> otherTimeList = route.getVehicle().getOtherTimeList();
-                List<Time> breakTimeList = route.getVehicle().getBreakTimeList();
-                List<Time> waitTimeList = route.getVehicle().getWaitTimeList();
-                List<Time> delayTimeList = route.getVehicle().getDelayTimeList();
-
-                // 2)integrate five lists into one
-                List<Time> timeList = new ArrayList<>();
-                timeList.addAll(driveTimeList);
-                timeList.addAll(otherTimeList);
-                timeList.addAll(breakTimeList);
-                timeList.addAll(waitTimeList);
-                timeList.addAll(delayTimeList);
-
-                // 3)group timeList by customerId (using Java stream API)
-                Map<Long, List<Time>> group = timeList.stream()
-                        .collect(Collectors.groupingBy(Time::getCustomerId));
-
-                // 4)traverse each group 'eachTimeList'
-                List<Time> processedTimeList = new ArrayList<>(); // final data
-                group.forEach((customerId, eachTimeList) -> {
-                    boolean isCollected = false, isDelivered = false; // check whether there is only a collect/deliver job
-                    for (Time time : eachTimeList) {
-                        if (time.getJobId().contains("C-")) isCollected = true;
-                        if (time.getJobId().contains("D-")) isDelivered = true;
+        double sum = 0.0;
+        for (Individual individual : individuals) {
+            sum += individual.getFitness();
+        }
+        population.setOverallFitness(sum);
+        return individuals.get(0).getFitness() < best;
+    }
+
+    /**
+     * encode an individual as a chromosome, each route serving customers is a group
+     */
+    protected static Chromosome encode(Individual individual) {
+        List<List<Long>> groups = new ArrayList<>();
+        List<Long> vehicles = new ArrayList<>();
+        for (Route route : individual.getRoutes()) {
+            List<Long> group = new ArrayList<>();
+            for (Customer customer : route.getCustomers()) {
+                if (!group.contains(customer.getId())) group.add(customer.getId()); // collect and deliver jobs of a customer
+            }
+            if (!group.isEmpty()) {
+                groups.add(group);
+                vehicles.add(route.getVehicle().getId());
+            }
+        }
+        return new Chromosome(groups, vehicles);
+    }
+
+    /**
+     * decode a chromosome into an individual, the customers are inserted group by group
+     */
+    protected static Individual decode(PreProcessData data, Chromosome chromosome) {
+        List<Long> customerOrder = new ArrayList<>();
+        for (List<Long> group : chromosome.getGroups()) {
+            customerOrder.addAll(group);
+        }
+        return decode(data, chromosome.getVehicles(), customerOrder);
+    }
+
+    /**
+     * decode the vehicles and customers in the given order into an individual, by the greedy construction on a copy
+     * of the data, the vehicles and customers not in the order follow in their original order
+     */
+    protected static Individual decode(PreProcessData data, List<Long> vehicleOrder, List<Long> customerOrder) {
+        // 1. copy the data, then sort its vehicles and customers
+        PreProcessData copy = data.copyForSolve(data.getRandom());
+        copy.setVehicleList(reorder(copy.getVehicleList(), vehicleOrder, Vehicle::getId));
+        copy.setCustomerList(reorder(copy.getCustomerList(), customerOrder, Customer::getId));
+
+        // 2. construct the individual and evaluate it
+        Individual individual = initializePopulationWithGreedy(copy, 1).getIndividuals().get(0);
+        individual.setFitness(evaluate(individual, copy));
+        return individual;
+    }
+
+    /* sort the items in the order of the ids, the items not in the order are kept at last in their original order */
+    protected static <T> List<T> reorder(List<T> items, List<Long> order, Function<T, Long> id) {
+        Map<Long, Integer> rank = new HashMap<>(order.size() * 2);
+        for (Long key : order) {
+            rank.putIfAbsent(key, rank.size());
+        }
+        List<T> res = new ArrayList<>(items);
+        res.sort(Comparator.comparingInt(item -> rank.getOrDefault(id.apply(item), Integer.MAX_VALUE))); // stable
+        return res;
+    }
+
+    protected static final double UNSERVED_PENALTY = 1e6; // fitness penalty (unit: h) for each customer not served
+
+    /**
+     * fitness of an individual (unit: h), the overall duration of the routes serving customers plus a penalty for each
+     * customer not served, a customer is served if its collect and deliver jobs are both in a route, as in the output
+     */
+    protected static double evaluate(Individual individual, PreProcessData data) {
+        double duration = 0.0;
+        Set<Long> served = new HashSet<>(); // a customer served by several routes is counted once
+        for (Route route : individual.getRoutes()) {
+            Vehicle vehicle = route.getVehicle();
+            Timeline timeline = vehicle.getTimeline();
+            long start = vehicle.getStartTime().getTime(), end = start;
+            for (int i = 0; i < timeline.size(); i++) {
+                end = Math.max(end, timeline.getEnd(i));
+            }
+            Set<Long> collected = timeline.servedCustomers();
+            if (!collected.isEmpty()) {
+                served.addAll(collected);
+                duration += (end - start) / (1000.0 * 60 * 60);
+            }
+        }
+        return duration + UNSERVED_PENALTY * (data.getCustomerList().size() - served.size());
+    }
+
+    /**
+     * Implementation of the GGA algorithm
+     */
+    protected static Individual GGA(PreProcessData data) throws IllegalArgumentException {
+        /**
+         * Individual: arrange of each vehicle
+         * Population: all vehicles composing a scheduling plan
+         * Fitness: the time needed to finish all the customers
+         */
+        // 1. parameters
+        int nPop = 20; // size of population(number of individuals in the population)
+        double pCross = 1.0; // crossover probability
+        double pMut = 0.5; // mutation probability
+        int nMax = 15000; // maximum number of generations
+        int nMaxWithoutImprovement = 3000; // maximum number of generations without improving the best individual
+        long budget = Long.getLong("aads.budget", 0) * 1000000; // time budget (unit: ns), opt-in, no limit if not positive
+        long start = System.nanoTime();
+        Individual bestIndividual = new Individual(); // best individual
+
+        // 2. initialize the population P, the first individual is the greedy one and the others are in random order
+        Random random = data.getRandom();
+        List<Long> vehicleOrder = new ArrayList<>(), customerOrder = new ArrayList<>();
+        for (Vehicle vehicle : data.getVehicleList()) vehicleOrder.add(vehicle.getId());
+        for (Customer customer : data.getCustomerList()) customerOrder.add(customer.getId());
+        int len = data.getVehicleList().size(); // the number of vehicles
+        if (len >= data.getCustomerList().size() && len >= 50) { // large dataset, shuffle randomly with specific seed
+            Collections.shuffle(vehicleOrder, random);
+        }
+        List<Individual> individuals = new ArrayList<>(nPop);
+        individuals.add(decode(data, vehicleOrder, customerOrder));
+        while (individuals.size() < nPop && (budget <= 0 || System.nanoTime() - start < budget)) {
+            List<Long> vehicles = new ArrayList<>(vehicleOrder), customers = new ArrayList<>(customerOrder);
+            Collections.shuffle(vehicles, random);
+            Collections.shuffle(customers, random);
+            individuals.add(decode(data, vehicles, customers));
+        }
+        individuals.sort(Comparator.comparingDouble(Individual::getFitness));
+        Population population = new Population(data.getContext(), individuals, nPop, 0.0,
+                new ArrayList<>(), new ArrayList<>());
+        bestIndividual = individuals.get(0);
+
+        // 3. set the iteration termination condition
+        int termination = 0, generation = 0;
+
+        // 4. loop if it does not meet the termination condition
+        while (termination <= nMaxWithoutImprovement && generation < nMax
+                && (budget <= 0 || System.nanoTime() - start < budget)) {
+            // 1)selection: according to the fitness, select a pair of individuals x and y from P as parents
+            List<Individual> parents = selection(data, population);
+
+            // 2)crossover: apply the crossover operator to x and y with probability pCross to generate two offspring x', y'
+            List<Chromosome> children = crossover(data, population, pCross, parents);
+
+            // 3)mutation: apply the mutation operator to x' and y' with probability pMut to generate two modified offspring x'', y'' respectively
+            mutation(data, children, pMut);
+
+            // 4)update the population P: insert x'' and y'' into P, removing the worst individuals from P accordingly
+            boolean improved = updatePopulation(data, population, children);
+
+            // 5)update the best individual so far and the value of the termination condition
+            if (improved) {
+                bestIndividual = population.getIndividuals().get(0);
+                termination = 0;
+            } else {
+                termination++;
+            }
+            generation++;
+        }
+        if (Boolean.getBoolean("aads.timing")) {
+            System.err.printf("GGA: %d generations in %dms, best fitness %.4fh%n", generation,
+                    (System.nanoTime() - start) / 1000000, bestIndividual.getFitness());
+        }
+
+        // 5. get the best individual found
+        return bestIndividual;
+    }
+
+    /**
+     * Solve the instance with several seeds in parallel, each solve on its own copy of the data,
+     * then return the best individual and report the spread of the fitness to the standard error
+     */
+    protected static Individual solveWithSeeds(PreProcessData data, int seeds, int threads) {
+        // 1. submit a solve for each seed, the first seed is the one of a single solve
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<ForkJoinTask<Individual>> tasks = new ArrayList<>(seeds);
+        try {
+            for (int i = 0; i < seeds; i++) {
+                PreProcessData copy = data.copyForSolve(new Random(SEED + i));
+                tasks.add(pool.submit(() -> GGA(copy)));
+            }
+
+            // 2. select the individual with the best fitness, the earlier seed wins a tie
+            Individual bestIndividual = null;
+            int bestSeed = 0;
+            double[] fitness = new double[seeds];
+            for (int i = 0; i < seeds; i++) {
+                Individual individual = tasks.get(i).join();
+                fitness[i] = individual.getFitness();
+                if (bestIndividual == null || fitness[i] < bestIndividual.getFitness()) {
+                    bestIndividual = individual;
+                    bestSeed = i;
+                }
+            }
+
+            // 3. report the spread
+            double min = Double.MAX_VALUE, max = -Double.MAX_VALUE, sum = 0.0, squares = 0.0;
+            for (double f : fitness) {
+                min = Math.min(min, f);
+                max = Math.max(max, f);
+                sum += f;
+            }
+            double mean = sum / seeds;
+            for (double f : fitness) {
+                squares += (f - mean) * (f - mean);
+            }
+            System.err.printf("Solved with %d seeds on %d threads: best fitness %.4fh (seed %d), " +
+                            "min %.4fh, max %.4fh, mean %.4fh, stddev %.4fh%n", seeds, threads,
+                    bestIndividual.getFitness(), SEED + bestSeed, min, max, mean, Math.sqrt(squares / seeds));
+            return bestIndividual;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Buffered writer of the text output, the text is encoded into a byte buffer and written to the channel of the
+     * standard output when it is full, the times are formatted from the epoch millis without any formatter object
+     */
+    protected static class TextWriter implements Flushable {
+        private static final int BUFFER_SIZE = 1 << 16;
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final byte[] digits = new byte[20]; // digits of a number, in reverse order
+        private final TimeZone timeZone = TimeZone.getDefault(); // zone of the input times
+
+        public TextWriter(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        /* writer of the standard output, anything printed to System.out before is flushed first */
+        public static TextWriter ofStandardOutput() {
+            System.out.flush();
+            return new TextWriter(new FileOutputStream(FileDescriptor.out).getChannel());
+        }
+
+        public TextWriter append(char c) throws IOException {
+            if (!buffer.hasRemaining()) flush();
+            buffer.put((byte) c);
+            return this;
+        }
+
+        public TextWriter append(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    append(c);
+                } else { // the input may hold non-ASCII job ids
+                    int end = Character.isHighSurrogate(c) && i + 1 < s.length() ? i + 2 : i + 1;
+                    for (byte b : s.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                        if (!buffer.hasRemaining()) flush();
+                        buffer.put(b);
                     }
-                    if (isCollected && isDelivered) { // have collection and delivery at the same time, meaning it is successfully allocated
-                        processedTimeList.addAll(eachTimeList); // add to the list
-                        cusId.add(customerId); // test
+                    i = end - 1;
+                }
+            }
+            return this;
+        }
+
+        public TextWriter append(long value) throws IOException {
+            if (value < 0) {
+                append('-');
+                if (value == Long.MIN_VALUE) return append(Long.toString(value).substring(1));
+                value = -value;
+            }
+            int n = 0;
+            do {
+                digits[n++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            while (n > 0) append((char) digits[--n]);
+            return this;
+        }
+
+        /* a duration as 'XhYm', e.g. 1h5m */
+        public TextWriter appendDuration(double time) throws IOException {
+            int hours = (int) (time / (60 * 60 * 1000));
+            int minutes = (int) ((time % (60 * 60 * 1000)) / (60 * 1000)); // remaining minutes
+            return append(hours).append('h').append(minutes).append('m');
+        }
+
+        /* the time of the day as 'HH:mm', e.g. 08:05 */
+        public TextWriter appendClock(double time) throws IOException {
+            int minutes = minuteOfDay((long) time);
+            int hours = minutes / 60;
+            minutes %= 60;
+            return append((char) ('0' + hours / 10)).append((char) ('0' + hours % 10)).append(':')
+                    .append((char) ('0' + minutes / 10)).append((char) ('0' + minutes % 10));
+        }
+
+        /* the time of the day as 'XhYm', e.g. 8h5m */
+        public TextWriter appendTimeOfDay(double time) throws IOException {
+            int minutes = minuteOfDay((long) time);
+            return append(minutes / 60).append('h').append(minutes % 60).append('m');
+        }
+
+        private int minuteOfDay(long time) {
+            long local = time + timeZone.getOffset(time);
+            return (int) (Math.floorMod(local, 24 * 60 * 60 * 1000L) / (60 * 1000));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+    }
+
+    /**
+     * a row of the output table being accumulated, from the time nodes after the previous row up to its job
+     */
+    protected static class OutputRow {
+        long journey; // drive time before the job
+        int distance; // drive distance before the job
+        long wait;
+        long delay;
+        int breaks; // number of breaks before the job and after its service
+        long[] breakStart = new long[4];
+        long[] breakDuration = new long[4];
+        long departure; // end of the service, or of the last break taken after it
+
+        void addBreak(long start, long duration) {
+            if (breaks == breakStart.length) {
+                breakStart = Arrays.copyOf(breakStart, breaks * 2);
+                breakDuration = Arrays.copyOf(breakDuration, breaks * 2);
+            }
+            breakStart[breaks] = start;
+            breakDuration[breaks] = duration;
+            breaks++;
+        }
+
+        /* start the next row */
+        void reset() {
+            journey = 0;
+            distance = 0;
+            wait = 0;
+            delay = 0;
+            breaks = 0;
+        }
+    }
+
+    /**
+     * Writer of the solution, getOutput() passes each route to it as soon as the rows of the route are assembled,
+     * the format is selected by -Daads.format: csv (default), jsonl or binary
+     */
+    protected interface SolutionWriter {
+        void begin() throws IOException;
+
+        /* the vehicle leaves its start site at 'startTime' */
+        void startRoute(long vehicleId, long startTime) throws IOException;
+
+        /* a collect/deliver job arriving at 'arrival', or the return journey to the depot if 'jobId' is null */
+        void row(String jobId, long arrival, long service, OutputRow row, int seq) throws IOException;
+
+        void endRoute() throws IOException;
+
+        /* after the last route */
+        void end() throws IOException;
+
+        /* the format name in lower case, checked before solving so that a wrong name fails early */
+        static String checkFormat(String format) {
+            String name = format.toLowerCase(Locale.ROOT);
+            if (!name.equals("csv") && !name.equals("jsonl") && !name.equals("binary")) {
+                throw new IllegalArgumentException("Unknown output format '" + format + "', expected csv, jsonl or binary.");
+            }
+            return name;
+        }
+
+        static SolutionWriter of(String format) {
+            switch (checkFormat(format)) {
+                case "csv":
+                    return new CsvSolutionWriter(TextWriter.ofStandardOutput());
+                case "jsonl":
+                    return new JsonLinesSolutionWriter(TextWriter.ofStandardOutput());
+                case "binary":
+                    System.out.flush();
+                    return new BinarySolutionWriter(new DataOutputStream(
+                            new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16)));
+                default:
+                    throw new AssertionError(format);
+            }
+        }
+    }
+
+    /**
+     * The output table, a line for the start of each route and for each of its rows
+     */
+    protected static class CsvSolutionWriter implements SolutionWriter {
+        private final TextWriter output;
+        private long vehicleId; // vehicle of the current route
+
+        public CsvSolutionWriter(TextWriter output) {
+            this.output = output;
+        }
+
+        @Override
+        public void begin() throws IOException {
+            output.append("VehicleName,JobId,JourneyTime,ArrivalTime,WaitTime," +
+                    "DelayTime,ServiceTime,DepartureTime,Break1Time,Break1Duration," +
+                    "Break2Time,Break2Duration,Distance,SequenceNo").append('\n');
+        }
+
+        @Override
+        public void startRoute(long vehicleId, long startTime) throws IOException {
+            this.vehicleId = vehicleId;
+            output.append(vehicleId).append(',').append("Vehicle ").append(vehicleId).append(" start").append(',');
+            output.appendDuration(0).append(',').appendClock(startTime).append(',');
+            output.appendDuration(0).append(',').appendDuration(0).append(',').appendDuration(0).append(',');
+            output.appendTimeOfDay(startTime).append(",,,,,").append(0).append(',').append(1).append('\n');
+        }
+
+        @Override
+        public void row(String jobId, long arrival, long service, OutputRow row, int seq) throws IOException {
+            output.append(vehicleId).append(',');
+            if (jobId != null) {
+                output.append(jobId).append(',');
+            } else {
+                output.append("Vehicle ").append(vehicleId).append(" end").append(',');
+            }
+            output.appendDuration(row.journey).append(',').appendClock(arrival).append(',');
+            output.appendDuration(row.wait).append(',').appendDuration(row.delay).append(',');
+            output.appendDuration(service).append(',').appendTimeOfDay(row.departure).append(',');
+            if (row.breaks > 0) {
+                output.appendClock(row.breakStart[0]).append(',').appendDuration(row.breakDuration[0]).append(',');
+            } else {
+                output.append(",,");
+            }
+            if (row.breaks > 1) {
+                long duration = 0; // more than two breaks are reported as a longer second break
+                for (int i = 1; i < row.breaks; i++) duration += row.breakDuration[i];
+                output.appendClock(row.breakStart[1]).append(',').appendDuration(duration).append(',');
+            } else {
+                output.append(",,");
+            }
+            output.append(row.distance).append(',').append(seq).append('\n');
+        }
+
+        @Override
+        public void endRoute() {
+        }
+
+        @Override
+        public void end() throws IOException {
+            output.flush();
+        }
+    }
+
+    /**
+     * JSON Lines, a line for each route which is flushed when the route is complete, e.g.
+     * {"vehicle":1,"start":...,"jobs":[{"seq":2,"job":"C-1","arrival":...,...,"breaks":[{"start":...,"duration":...}]},
+     * ...,{"seq":9,"job":null,...}]}, the job of the return journey is null, times are epoch millis and durations ms
+     */
+    protected static class JsonLinesSolutionWriter implements SolutionWriter {
+        private final TextWriter output;
+        private boolean firstRow; // no row of the current route has been written
+
+        public JsonLinesSolutionWriter(TextWriter output) {
+            this.output = output;
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public void startRoute(long vehicleId, long startTime) throws IOException {
+            output.append("{\"vehicle\":").append(vehicleId).append(",\"start\":").append(startTime).append(",\"jobs\":[");
+            firstRow = true;
+        }
+
+        @Override
+        public void row(String jobId, long arrival, long service, OutputRow row, int seq) throws IOException {
+            if (!firstRow) output.append(',');
+            firstRow = false;
+            output.append("{\"seq\":").append(seq).append(",\"job\":");
+            if (jobId != null) {
+                appendString(jobId);
+            } else {
+                output.append("null");
+            }
+            output.append(",\"journey\":").append(row.journey).append(",\"distance\":").append(row.distance);
+            output.append(",\"arrival\":").append(arrival).append(",\"wait\":").append(row.wait);
+            output.append(",\"delay\":").append(row.delay).append(",\"service\":").append(service);
+            output.append(",\"departure\":").append(row.departure).append(",\"breaks\":[");
+            for (int i = 0; i < row.breaks; i++) {
+                if (i > 0) output.append(',');
+                output.append("{\"start\":").append(row.breakStart[i]).append(",\"duration\":").append(row.breakDuration[i]).append('}');
+            }
+            output.append("]}");
+        }
+
+        private void appendString(String s) throws IOException {
+            output.append('"');
+            int from = 0; // start of the characters not escaped yet
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '"' || c == '\\' || c < 0x20) {
+                    output.append(s.substring(from, i));
+                    output.append(c < 0x20 ? String.format("\\u%04x", (int) c) : "\\" + c);
+                    from = i + 1;
+                }
+            }
+            output.append(s.substring(from)).append('"');
+        }
+
+        @Override
+        public void endRoute() throws IOException {
+            output.append("]}\n");
+            output.flush(); // the route can be dispatched before the rest is written
+        }
+
+        @Override
+        public void end() throws IOException {
+            output.flush();
+        }
+    }
+
+    /**
+     * Binary records in big-endian order, flushed when each route is complete:
+     * the header is int MAGIC and int VERSION, then for each route 'R' vehicle id (long) and start time (long),
+     * 'J' for each job or 'D' for the return journey with the job id (int length and UTF-8 bytes, 'D' has none),
+     * sequence no (int), arrival, service, departure, journey (long), distance (int), wait, delay (long),
+     * number of breaks (int) and start and duration (long) of each break, 'E' at the end of the route,
+     * and 'Z' after the last route, times are epoch millis and durations ms
+     */
+    protected static class BinarySolutionWriter implements SolutionWriter {
+        private static final int MAGIC = 0x41414453; // "AADS"
+        private static final int VERSION = 2;
+
+        private final DataOutputStream out;
+
+        public BinarySolutionWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void begin() throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        @Override
+        public void startRoute(long vehicleId, long startTime) throws IOException {
+            out.writeByte('R');
+            out.writeLong(vehicleId);
+            out.writeLong(startTime);
+        }
+
+        @Override
+        public void row(String jobId, long arrival, long service, OutputRow row, int seq) throws IOException {
+            if (jobId != null) {
+                out.writeByte('J');
+                CompiledInstance.writeString(out, jobId);
+            } else {
+                out.writeByte('D');
+            }
+            out.writeInt(seq);
+            out.writeLong(arrival);
+            out.writeLong(service);
+            out.writeLong(row.departure);
+            out.writeLong(row.journey);
+            out.writeInt(row.distance);
+            out.writeLong(row.wait);
+            out.writeLong(row.delay);
+            out.writeInt(row.breaks);
+            for (int i = 0; i < row.breaks; i++) {
+                out.writeLong(row.breakStart[i]);
+                out.writeLong(row.breakDuration[i]);
+            }
+        }
+
+        @Override
+        public void endRoute() throws IOException {
+            out.writeByte('E');
+            out.flush(); // the route can be dispatched before the rest is written
+        }
+
+        @Override
+        public void end() throws IOException {
+            out.writeByte('Z');
+            out.flush();
+        }
+    }
+
+    /**
+     * output the routes of the best individual in the format of -Daads.format
+     */
+    protected static void getOutput(Individual bestIndividual, String format) throws IOException {
+        if (bestIndividual != null) {
+            getOutput(bestIndividual, SolutionWriter.of(format));
+        } else {
+            System.out.println("There is no best individual.");
+        }
+    }
+
+    /**
+     * output the routes of the best individual, in one pass over the time nodes of each route: the waits, drives and
+     * breaks before a collect/deliver job are accumulated into its row, which is written once the breaks taken after
+     * its service are known
+     */
+    protected static void getOutput(Individual bestIndividual, SolutionWriter writer) throws IOException {
+        // 1. output the header
+        writer.begin();
+
+        // 2. output each route
+        OutputRow row = new OutputRow();
+        for (Route route : bestIndividual.getRoutes()) {
+            // 1)only the customers having both a collect and a deliver job are successfully allocated
+            Timeline timeline = route.getVehicle().getTimeline();
+            Set<Long> served = timeline.servedCustomers();
+            if (served.isEmpty()) continue; // jump to next route
+            writer.startRoute(route.getVehicle().getId(), route.getVehicle().getStartTime().getTime());
+
+            // 2)output a row for each collect/deliver job and for the return journey
+            int seq = 1; // SequenceNo, the start of the route is the first
+            int job = -1; // node of the job whose row is not written yet
+            for (int i = 0; i < timeline.size(); i++) {
+                if (!served.contains(timeline.getCustomerId(i))) continue;
+                byte type = timeline.getType(i);
+                if (type == Timeline.BREAK) {
+                    row.addBreak(timeline.getStart(i), timeline.getDuration(i));
+                    if (job >= 0) row.departure = timeline.getEnd(i); // a break after the service
+                    continue;
+                }
+                if (job >= 0) { // the breaks after the service of the job have been taken
+                    writer.row(timeline.getJobId(job), timeline.getStart(job), timeline.getDuration(job), row, ++seq);
+                    row.reset();
+                    job = -1;
+                }
+                if (type == Timeline.WAIT) {
+                    row.wait += timeline.getDuration(i);
+                } else if (type == Timeline.DELAY) {
+                    row.delay += timeline.getDuration(i);
+                } else if (type == Timeline.DRIVE) {
+                    row.journey += timeline.getDuration(i);
+                    row.distance += timeline.getDistance(i);
+                } else if (type == Timeline.RETURN) { // return to the depot
+                    row.journey += timeline.getDuration(i);
+                    row.distance += timeline.getDistance(i);
+                    row.departure = timeline.getEnd(i);
+                    writer.row(null, timeline.getEnd(i), 0, row, ++seq);
+                    row.reset();
+                } else { // collect/deliver
+                    job = i;
+                    row.departure = timeline.getEnd(i);
+                }
+            }
+            if (job >= 0) {
+                writer.row(timeline.getJobId(job), timeline.getStart(job), timeline.getDuration(job), row, ++seq);
+                row.reset();
+            }
+            writer.endRoute();
+        }
+        writer.end();
+    }
+
+    /**
+     * Deterministic synthetic instances in the input schema, written as a stream so that the matrices are never held
+     * in memory (only the coordinates are): the sites lie in an area of 0.2 x 0.2 degrees, spread uniformly or around
+     * a number of cluster centres, the distance follows the Manhattan distance between them, and the time windows are
+     * a year long or a given number of hours within the working day
+     */
+    protected static class SyntheticInstance {
+        private static final LocalDateTime DAY = LocalDateTime.of(2022, 1, 1, 8, 0); // start of the working day
+        private static final int[] COLLECT_TIMES = {0, 10, 15, 30}; // service times (unit: min)
+        private static final int[] DELIVER_TIMES = {0, 10, 20, 45};
+
+        private final long seed;
+        private final int sites;
+        private final int orders;
+        private final int vehicles;
+        private final int windowHours; // length of the time windows, 0 for a year
+        private final int clusters; // number of cluster centres of the sites, 0 for a uniform spread
+        private final int maxDutyMins; // 'Configuration.MaxDutyTimeMins', not written if 0
+        private final int maxDriveMins; // 'Configuration.MaxDriveTimeMins', not written if 0
+
+        public SyntheticInstance(long seed, int sites, int orders, int vehicles, int windowHours, int clusters) {
+            this(seed, sites, orders, vehicles, windowHours, clusters, 0, 0);
+        }
+
+        public SyntheticInstance(long seed, int sites, int orders, int vehicles, int windowHours, int clusters,
+                                 int maxDutyMins, int maxDriveMins) {
+            if (sites < 1 || orders < 0 || vehicles < 1 || windowHours < 0 || clusters < 0
+                    || maxDutyMins < 0 || maxDriveMins < 0) {
+                throw new IllegalArgumentException("An instance needs a site and a vehicle, and no negative sizes.");
+            }
+            this.seed = seed;
+            this.sites = sites;
+            this.orders = orders;
+            this.vehicles = vehicles;
+            this.windowHours = windowHours;
+            this.clusters = clusters;
+            this.maxDutyMins = maxDutyMins;
+            this.maxDriveMins = maxDriveMins;
+        }
+
+        /* the instance of the -Daads.generate.* properties */
+        public static SyntheticInstance fromProperties() {
+            int sites = Integer.getInteger("aads.generate.sites", 100);
+            return new SyntheticInstance(Long.getLong("aads.generate.seed", SEED), sites,
+                    Integer.getInteger("aads.generate.orders", Math.max(sites / 2, 1)),
+                    Integer.getInteger("aads.generate.vehicles", Math.max(sites / 10, 1)),
+                    Integer.getInteger("aads.generate.window", 0),
+                    Integer.getInteger("aads.generate.clusters", 0),
+                    Integer.getInteger("aads.generate.maxDuty", 0),
+                    Integer.getInteger("aads.generate.maxDrive", 0));
+        }
+
+        /* write the instance to the file, through a large buffer */
+        public void write(Path file) throws IOException {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), 1 << 20)) {
+                write(out);
+            }
+        }
+
+        public void write(Writer out) throws IOException {
+            Random random = new Random(seed);
+            // 1. sites, around the cluster centres if there are any
+            double[] lat = new double[sites], lon = new double[sites];
+            double[] centreLat = new double[clusters], centreLon = new double[clusters];
+            for (int c = 0; c < clusters; c++) {
+                centreLat[c] = 41.3 + random.nextDouble() * 0.2;
+                centreLon[c] = 2.1 + random.nextDouble() * 0.2;
+            }
+            for (int i = 0; i < sites; i++) {
+                if (clusters == 0) {
+                    lat[i] = 41.3 + random.nextDouble() * 0.2;
+                    lon[i] = 2.1 + random.nextDouble() * 0.2;
+                } else {
+                    int c = random.nextInt(clusters);
+                    lat[i] = centreLat[c] + random.nextGaussian() * 0.01;
+                    lon[i] = centreLon[c] + random.nextGaussian() * 0.01;
+                }
+            }
+
+            // 2. orders, a collect window in the first 6 hours of the day and a delivery window 1 to 4 hours later
+            out.write("{\"InstanceName\":\"synthetic-" + seed + "-n" + sites + "\",\"Orders\":[");
+            for (int k = 0; k < orders; k++) {
+                LocalDateTime earliestCollect = DAY, latestCollect = DAY.plusYears(1);
+                LocalDateTime earliestDeliver = DAY, latestDeliver = DAY.plusYears(1);
+                int collectSite = random.nextInt(sites), deliverSite = random.nextInt(sites);
+                if (windowHours > 0) {
+                    earliestCollect = DAY.plusMinutes(random.nextInt(6 * 60));
+                    latestCollect = earliestCollect.plusHours(windowHours);
+                    earliestDeliver = earliestCollect.plusMinutes(60 + random.nextInt(3 * 60));
+                    latestDeliver = earliestDeliver.plusHours(windowHours);
+                }
+                if (k > 0) out.write(',');
+                out.write("{\"CustomerName\":\"CustomerName-" + k + "\",\"CollectId\":\"C-" + k
+                        + "\",\"DeliverId\":\"D-" + k + "\",\"CollectSiteId\":\"" + collectSite
+                        + "\",\"DeliverSiteId\":\"" + deliverSite
+                        + "\",\"EarliestCollect1\":\"" + format(earliestCollect)
+                        + "\",\"LatestCollect1\":\"" + format(latestCollect)
+                        + "\",\"EarliestDeliver1\":\"" + format(earliestDeliver)
+                        + "\",\"LatestDeliver1\":\"" + format(latestDeliver)
+                        + "\",\"CollectTimeInMinutes\":" + COLLECT_TIMES[random.nextInt(COLLECT_TIMES.length)]
+                        + ",\"DeliverTimeInMinutes\":" + DELIVER_TIMES[random.nextInt(DELIVER_TIMES.length)]
+                        + ",\"Weight\":" + (1 + random.nextInt(59)) + "}");
+            }
+
+            // 3. vehicles, all starting and ending at the first site
+            out.write("],\"Vehicles\":[");
+            for (int v = 1; v <= vehicles; v++) {
+                if (v > 1) out.write(',');
+                out.write("{\"Id\":\"" + v + "\",\"StartSite\":\"0\",\"StartTime\":\"" + format(DAY)
+                        + "\",\"VehicleCapacity\":[{\"CompartmentId\":\"" + v + "\",\"Weight\":300}],\"EndSite\":\"0\"}");
+            }
+            out.write("]");
+            if (maxDutyMins > 0 || maxDriveMins > 0) { // otherwise the limits of -Daads.regulation apply
+                out.write(",\"Configuration\":{");
+                if (maxDutyMins > 0) out.write("\"MaxDutyTimeMins\":" + maxDutyMins);
+                if (maxDutyMins > 0 && maxDriveMins > 0) out.write(',');
+                if (maxDriveMins > 0) out.write("\"MaxDriveTimeMins\":" + maxDriveMins);
+                out.write("}");
+            }
+
+            // 4. matrix, a row at a time
+            out.write(",\"Matrix\":{\"Locations\":[");
+            for (int i = 0; i < sites; i++) {
+                if (i > 0) out.write(',');
+                out.write(String.format(Locale.ROOT, "\"%.7f, %.7f\"", lat[i], lon[i]));
+            }
+            out.write("],\"Data\":[[");
+            StringBuilder row = new StringBuilder();
+            for (int i = 0; i < sites; i++) {
+                row.setLength(0);
+                row.append(i > 0 ? ",[" : "[");
+                for (int j = 0; j < sites; j++) {
+                    if (j > 0) row.append(',');
+                    if (i == j) {
+                        row.append("null");
+                    } else {
+                        int distance = (int) ((Math.abs(lat[i] - lat[j]) + Math.abs(lon[i] - lon[j])) * 100000) + 100;
+                        row.append('[').append(distance).append(',').append(distance / 12 + 60).append(']');
                     }
-                });
-                timeList = processedTimeList; // assign new list to the timeList
-
-                // 5)sort the integrated list
-                timeList.sort((o1, o2) -> Long.compare(o1.getId(), o2.getId()));
-
-                // 6)get the id of vehicle
-                if (timeList.isEmpty()) continue; // jump to next route
-                long vehicleId = timeList.get(0).getVehicleId();
-
-                // 7)add the first line
-                output.append(vehicleId).append(","); // VehicleName
-                output.append("Vehicle ").append(vehicleId).append(" start").append(","); // JobId
-                output.append(formatDate(0, "H'h'm'm'")).append(","); // JourneyTime
-                output.append(formatDate(route.getVehicle().getStartTime().getTime(), "HH:mm")).append(","); // ArrivalTime(Vehicle's start time)
-                output.append(formatDate(0, "H'h'm'm'")).append(","); // WaitTime equals zero
-                output.append(formatDate(0, "H'h'm'm'")).append(","); // DelayTime equals zero
-                output.append(formatDate(0, "H'h'm'm'")).append(","); // ServiceTime equals zero
-                output.append(formatDate(route.getVehicle().getStartTime().getTime(), "extract")).append(","); // DepartureTime equals to ArrivalTime
-                output.append(",").append(",").append(",").append(","); // related BreakTime are zero
-                output.append(0).append(","); // Distance equals to zero
-                output.append(1).append("\n"); // SequenceNo with \n
-
-                // 8)output each item in the integrated list
-                int seqR = 0; // control the sequenceNo of the tail
-                int seqCD = 1; // control the sequenceNo of collect and deliver jobs
-                for (int i = 0; i < timeList.size(); i++) {
-                    Time curTime = timeList.get(i); // obtain the i-th Time node
-//                    System.out.println("time: " + curTime);
-
-                    // typesetting by job type
-                    if (curTime.getJobId().equals("return")) { // return to the depot
-                        output.append(vehicleId).append(","); // VehicleName
-                        output.append("Vehicle ").append(vehicleId).append(" end").append(","); // JobId
-                        output.append(formatDate(curTime.getDuration(), "H'h'm'm'")).append(","); // JourneyTime
-                        output.append(formatDate(curTime.getEnd().getTime(), "HH:mm")).append(","); // ArrivalTime (the time to return to the start site)
-                        output.append(formatDate(0, "H'h'm'm'")).append(","); // WaitTime equals zero
-                        output.append(formatDate(0, "H'h'm'm'")).append(","); // DelayTime equals zero
-                        output.append(formatDate(0, "H'h'm'm'")).append(","); // ServiceTime equals zero
-                        output.append(formatDate(curTime.getEnd().getTime(), "extract")).append(","); // DepartureTime
-                        // BreakTime
-                        if (i > 2) {
-                            Time firstTime = timeList.get(i - 2);
-                            Time secondTime = timeList.get(i - 1);
-                            if (firstTime != null && secondTime != null
-                                    && firstTime.getJobId().equals("break") && secondTime.getJobId().equals("break")) { // two breaks
-                                output.append(formatDate(firstTime.getStart().getTime(), "HH:mm")).append(",")
-                                        .append(formatDate(firstTime.getDuration(), "H'h'm'm'")).append(",")
-                                        .append(formatDate(secondTime.getEnd().getTime(), "HH:mm")).append(",")
-                                        .append(formatDate(secondTime.getDuration(), "H'h'm'm'")).append(",");
-                            } else { // only one break
-                                if (firstTime != null && secondTime != null
-                                        && !firstTime.getJobId().equals("break") && secondTime.getJobId().equals("break")) {
-                                    output.append(formatDate(secondTime.getStart().getTime(), "HH:mm")).append(",")
-                                            .append(formatDate(secondTime.getDuration(), "H'h'm'm'")).append(",")
-                                            .append(",").append(",");
-                                } else {
-                                    output.append(",").append(",").append(",").append(","); // related BreakTime are zero
-                                }
-                            }
-                        } else {
-                            output.append(",").append(",").append(",").append(","); // related BreakTime are zero
-                        }
-                        // Distance
-                        output.append(curTime.getDistance()).append(",");
-                        output.append(seqR + 2); // SequenceNo, j+2 means existing the head and tail
-                    } else if (!curTime.getJobId().equals("drive") && !curTime.getJobId().equals("wait")
-                            && !curTime.getJobId().equals("delay") && !curTime.getJobId().equals("break")) {
-                        // collect/deliver
-                        seqCD++; // update the pointer
-                        output.append(vehicleId).append(","); // VehicleName
-                        output.append(curTime.getJobId()).append(","); // JobId
-
-                        // JourneyTime
-                        if (i > 2) {
-                            Time firstTime = timeList.get(i - 3);
-                            Time secondTime = timeList.get(i - 2);
-                            Time thirdTime = timeList.get(i - 1);
-                            if (firstTime != null && secondTime != null && thirdTime != null
-                                    && firstTime.getJobId().equals("drive")
-                                    && secondTime.getJobId().equals("break")
-                                    && thirdTime.getJobId().equals("break")) { // two breaks after a drive
-                                output.append(formatDate(firstTime.getDuration(), "H'h'm'm'")).append(","); // JourneyTime
-                            } else if (secondTime != null && thirdTime != null
-                                    && secondTime.getJobId().equals("drive")
-                                    && thirdTime.getJobId().equals("break")) { // a break after a drive, before this collect/deliver job
-                                output.append(formatDate(secondTime.getDuration(), "H'h'm'm'")).append(","); // JourneyTime
-                            } else if (thirdTime != null && thirdTime.getJobId().equals("drive")) { // no break before this job
-                                output.append(formatDate(thirdTime.getDuration(), "H'h'm'm'")).append(","); // JourneyTime
-                            } else {
-                                output.append(formatDate(0, "H'h'm'm'")).append(","); // JourneyTime equals zero
-                            }
-                        } else if (i > 1) {
-                            Time firstTime = timeList.get(i - 2);
-                            Time secondTime = timeList.get(i - 1);
-                            if (firstTime != null && secondTime != null
-                                    && firstTime.getJobId().equals("drive")
-                                    && secondTime.getJobId().equals("break")) { // a break after a drive
-                                output.append(formatDate(firstTime.getDuration(), "H'h'm'm'")).append(","); // JourneyTime
-                            } else if (secondTime != null && secondTime.getJobId().equals("drive")) { // no break before this job
-                                output.append(formatDate(secondTime.getDuration(), "H'h'm'm'")).append(","); // JourneyTime
-                            } else {
-                                output.append(formatDate(0, "H'h'm'm'")).append(","); // JourneyTime equals zero
-                            }
-                        } else if (i == 1) {
-                            Time lastTime = timeList.get(i - 1);
-                            if (lastTime != null && lastTime.getJobId().equals("drive")) {
-                                output.append(formatDate(lastTime.getDuration(), "H'h'm'm'")).append(","); // JourneyTime
-                            } else {
-                                output.append(formatDate(0, "H'h'm'm'")).append(","); // JourneyTime equals zero
-                            }
-                        } else {
-                            output.append(formatDate(0, "H'h'm'm'")).append(","); // JourneyTime equals zero
-                        }
+                }
+                out.append(row.append(']'));
+            }
+            out.write("]]}}");
+        }
 
-                        // ArrivalTime
-                        output.append(formatDate(curTime.getStart().getTime(), "HH:mm")).append(","); // ArrivalTime
-
-                        // wait time
-                        if (i > 1) {
-                            Time firstTime = timeList.get(i - 2);
-                            Time secondTime = timeList.get(i - 1);
-                            if (firstTime != null && secondTime != null
-                                    && firstTime.getJobId().equals("wait") && secondTime.getJobId().equals("drive")) {
-                                output.append(formatDate(firstTime.getDuration(), "H'h'm'm'")).append(","); // WaitTime
-                            } else if (secondTime != null && secondTime.getJobId().equals("wait")) {
-                                output.append(formatDate(secondTime.getDuration(), "H'h'm'm'")).append(","); // WaitTime
-                            } else {
-                                output.append(formatDate(0, "H'h'm'm'")).append(","); // WaitTime equals to zero
-                            }
-                        } else if (i == 1) {
-                            Time lastTime = timeList.get(i - 1);
-                            if (lastTime != null && lastTime.getJobId().equals("wait")) {
-                                output.append(formatDate(lastTime.getDuration(), "H'h'm'm'")).append(","); // WaitTime
-                            } else {
-                                output.append(formatDate(0, "H'h'm'm'")).append(","); // WaitTime equals to zero
-                            }
-                        } else {
-                            output.append(formatDate(0, "H'h'm'm'")).append(","); // WaitTime equals to zero
+        private static String format(LocalDateTime time) {
+            return time.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+    }
+
+    /**
+     * Micro-benchmarks of the hot paths, run by -Daads.bench=[all|name,...] on synthetic instances of the sizes in
+     * -Daads.bench.sites (default 100,1000), each is warmed up and then repeated for -Daads.bench.time ms (at least
+     * once), and the results are printed as CSV so that a later run can be compared with -Daads.bench.baseline=[file];
+     * breaks-legacy runs the needBreaks() that BreakState replaced on the same input as breaks, to compare the two
+     */
+    protected static class Benchmark {
+        private static final List<String> NAMES = List.of("parse", "preprocess", "separation", "combination",
+                "breaks", "breaks-legacy", "greedy", "output");
+        private static volatile int sink; // consumes the results, so that the work is not optimised away
+
+        public static void run(String selected) throws Exception {
+            List<String> names = selected.equals("all") || selected.equals("true")
+                    ? NAMES : Arrays.asList(selected.split(","));
+            for (String name : names) {
+                if (!NAMES.contains(name)) {
+                    throw new IllegalArgumentException("Unknown benchmark '" + name + "', expected one of " + NAMES + ".");
+                }
+            }
+            long time = Long.getLong("aads.bench.time", 2000);
+            Map<String, Double> baseline = readBaseline(System.getProperty("aads.bench.baseline"));
+            System.out.println("Benchmark,Sites,Ops,AvgMs,MinMs,VsBaseline");
+            for (String size : System.getProperty("aads.bench.sites", "100,1000").split(",")) {
+                int sites = Integer.parseInt(size.trim());
+                Path file = Files.createTempFile("aads-bench", ".json");
+                try {
+                    // 1. the instance and what the benchmarks start from
+                    new SyntheticInstance(SEED, sites, Math.max(sites / 10, 2), Math.max(sites / 10, 1), 0, 0).write(file);
+                    InputData input = getInput(file.toString());
+                    PreProcessData data = preProcessData(input, new SolveContext());
+                    PreProcessData solved = data.copyForSolve(new Random(SEED));
+                    Individual individual = initializePopulationWithGreedy(solved, 1).getIndividuals().get(0);
+                    List<Route> routes = individual.getRoutes();
+                    List<Customer> customers = solved.getCustomerList();
+                    long[] durations = new long[1024];
+                    Random random = new Random(SEED);
+                    for (int i = 0; i < durations.length; i++) durations[i] = random.nextInt(60 * 60 * 1000);
+                    BreakState state = new BreakState();
+                    TextWriter discard = new TextWriter(new WritableByteChannel() {
+                        public int write(ByteBuffer src) {
+                            int n = src.remaining();
+                            src.position(src.limit());
+                            return n;
                         }
 
-                        // DelayTime
-                        output.append(formatDate(0, "H'h'm'm'")).append(",");
-                        // ServiceTime
-                        output.append(formatDate(curTime.getDuration(), "H'h'm'm'")).append(",");
-
-                        // DepartureTime
-                        if (i > 1) {
-                            Time firstBreak = timeList.get(i - 2);
-                            Time secondBreak = timeList.get(i - 1);
-                            double break1 = (firstBreak != null && firstBreak.getDuration() > 0) ? firstBreak.getDuration() : 0;
-                            double break2 = (secondBreak != null && secondBreak.getDuration() > 0) ? secondBreak.getDuration() : 0;
-                            if (firstBreak != null && secondBreak != null
-                                    && firstBreak.getJobId().equals("break") && secondBreak.getJobId().equals("break")) { // two breaks
-                                output.append(formatDate(curTime.getEnd().getTime() + break1 + break2, "extract")).append(","); // DepartureTime
-                            } else if (firstBreak != null && secondBreak != null
-                                    && !firstBreak.getJobId().equals("break") && secondBreak.getJobId().equals("break")) { // one break
-                                output.append(formatDate(curTime.getEnd().getTime() + break2, "extract")).append(","); // DepartureTime
-                            } else { // the first item should not be break time
-                                output.append(formatDate(curTime.getEnd().getTime(), "extract")).append(","); // DepartureTime
-                            }
-                        } else if (i == 1) {
-                            Time lastBreak = timeList.get(i - 1);
-                            double breakTime = (lastBreak != null && lastBreak.getDuration() > 0) ? lastBreak.getDuration() : 0;
-                            if (lastBreak != null && lastBreak.getJobId().equals("break")) {
-                                output.append(formatDate(curTime.getEnd().getTime() + breakTime, "extract")).append(","); // DepartureTime
-                            } else {
-                                output.append(formatDate(curTime.getEnd().getTime(), "extract")).append(","); // DepartureTime
-                            }
-                        } else {
-                            output.append(formatDate(curTime.getEnd().getTime(), "extract")).append(","); // DepartureTime
+                        public boolean isOpen() {
+                            return true;
                         }
 
-                        // breakTime
-                        if (i > 1) {
-                            Time firstBreak = timeList.get(i - 2);
-                            Time secondBreak = timeList.get(i - 1);
-                            if (firstBreak != null && secondBreak != null
-                                    && firstBreak.getJobId().equals("break") && secondBreak.getJobId().equals("break")) { // two breaks
-                                output.append(formatDate(firstBreak.getStart().getTime(), "HH:mm")).append(",")
-                                        .append(formatDate(firstBreak.getDuration(), "H'h'm'm'")).append(",")
-                                        .append(formatDate(secondBreak.getEnd().getTime(), "HH:mm")).append(",")
-                                        .append(formatDate(secondBreak.getDuration(), "H'h'm'm'")).append(",");
-                            } else { // only one break
-                                if (firstBreak != null && secondBreak != null
-                                        && !firstBreak.getJobId().equals("break") && secondBreak.getJobId().equals("break")) {
-                                    output.append(formatDate(secondBreak.getStart().getTime(), "HH:mm")).append(",")
-                                            .append(formatDate(secondBreak.getDuration(), "H'h'm'm'")).append(",")
-                                            .append(",").append(",");
-                                } else if (firstBreak != null && secondBreak != null
-                                        && firstBreak.getJobId().equals("break") && !secondBreak.getJobId().equals("break")) {
-                                    output.append(formatDate(firstBreak.getStart().getTime(), "HH:mm")).append(",")
-                                            .append(formatDate(firstBreak.getDuration(), "H'h'm'm'")).append(",")
-                                            .append(",").append(",");
-                                } else {
-                                    output.append(",").append(",").append(",").append(","); // related BreakTime are zero
+                        public void close() {
+                        }
+                    });
+
+                    // 2. measure each benchmark
+                    for (String name : names) {
+                        Callable<Object> op;
+                        int[] next = new int[1]; // next customer to probe
+                        switch (name) {
+                            case "parse":
+                                op = () -> getInput(file.toString());
+                                break;
+                            case "preprocess":
+                                op = () -> preProcessData(input, new SolveContext());
+                                break;
+                            case "separation":
+                                op = () -> {
+                                    Customer customer = customers.get(next[0]++ % customers.size());
+                                    int accepted = 0;
+                                    for (Route route : routes) {
+                                        if (route.canAddACustomerBySeparation(customer, solved, true).getFirst()) accepted++;
+                                    }
+                                    return accepted;
+                                };
+                                break;
+                            case "combination":
+                                op = () -> {
+                                    Customer customer = customers.get(next[0]++ % customers.size());
+                                    int accepted = 0;
+                                    for (Route route : routes) {
+                                        if (route.canAddACustomerByCombination(customer, solved).getFirst()) accepted++;
+                                    }
+                                    return accepted;
+                                };
+                                break;
+                            case "breaks":
+                                op = () -> {
+                                    state.reset(data.getRegulation(), 0, 0, 0, 0);
+                                    for (long duration : durations) {
+                                        state.driveTime += duration;
+                                        state.step(duration * 4);
+                                    }
+                                    return state.curTime;
+                                };
+                                break;
+                            case "breaks-legacy":
+                                long[] staged = new long[8]; // start and duration of the breaks, as BreakState records them
+                                op = () -> {
+                                    long curTime = 0, breakTime = 0, driveTime = 0;
+                                    for (long duration : durations) {
+                                        List<Long> res = needBreaks(curTime, duration * 4, breakTime, 0, driveTime + duration, staged);
+                                        breakTime = res.get(0);
+                                        driveTime = res.get(1);
+                                        curTime = res.get(2);
+                                    }
+                                    return curTime;
+                                };
+                                state.reset(data.getRegulation(), 0, 0, 0, 0);
+                                for (long duration : durations) {
+                                    state.driveTime += duration;
+                                    state.step(duration * 4);
                                 }
-                            }
-                        } else if (i == 1) {
-                            Time lastBreak = timeList.get(i - 1);
-                            if (lastBreak != null && lastBreak.getJobId().equals("break")) {
-                                output.append(formatDate(lastBreak.getStart().getTime(), "HH:mm")).append(",")
-                                        .append(formatDate(lastBreak.getDuration(), "H'h'm'm'")).append(",")
-                                        .append(",").append(",");
-                            } else {
-                                output.append(",").append(",").append(",").append(","); // related BreakTime are zero
-                            }
-                        } else {
-                            output.append(",").append(",").append(",").append(","); // related BreakTime are zero
+                                if ((long) op.call() != state.curTime) { // both must take the same breaks
+                                    throw new IllegalStateException("needBreaks and BreakState take different breaks.");
+                                }
+                                break;
+                            case "greedy":
+                                op = () -> initializePopulationWithGreedy(data.copyForSolve(new Random(SEED)), 1);
+                                break;
+                            default: // output
+                                op = () -> {
+                                    getOutput(individual, new CsvSolutionWriter(discard));
+                                    return individual;
+                                };
                         }
+                        double[] result = measure(op, time);
+                        Double base = baseline.get(name + "," + sites);
+                        System.out.printf(Locale.ROOT, "%s,%d,%d,%.4f,%.4f,%s%n", name, sites, (long) result[0],
+                                result[1], result[2], base == null ? "" : String.format(Locale.ROOT, "%.2fx", base / result[1]));
+                    }
+                } finally {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
 
-                        // Distance
-                        if (i > 2) {
-                            Time firstTime = timeList.get(i - 3);
-                            Time secondTime = timeList.get(i - 2);
-                            Time thirdTime = timeList.get(i - 1);
-                            if (firstTime != null && secondTime != null && thirdTime != null
-                                    && firstTime.getJobId().equals("drive")
-                                    && secondTime.getJobId().equals("break")
-                                    && thirdTime.getJobId().equals("break")) { // two breaks after a drive
-                                output.append(firstTime.getDistance()).append(",");
-                            } else if (firstTime != null && secondTime != null && thirdTime != null
-                                    && secondTime.getJobId().equals("drive")
-                                    && thirdTime.getJobId().equals("break")) { // a break after a drive, before this collect/deliver job
-                                output.append(secondTime.getDistance()).append(",");
-                            } else if (firstTime != null && secondTime != null && thirdTime != null
-                                    && thirdTime.getJobId().equals("drive")) { // no break before this job
-                                output.append(thirdTime.getDistance()).append(",");
-                            } else {
-                                output.append(0).append(",");
-                            }
-                        } else if (i == 2) {
-                            Time firstTime = timeList.get(i - 2);
-                            Time secondTime = timeList.get(i - 1);
-                            if (firstTime != null && secondTime != null
-                                    && firstTime.getJobId().equals("drive") && secondTime.getJobId().equals("break")) { // one break
-                                output.append(firstTime.getDistance()).append(",");
-                            } else if (firstTime != null && secondTime != null
-                                    && secondTime.getJobId().equals("drive")) { // no break
-                                output.append(secondTime.getDistance()).append(",");
-                            } else { // the first item should not be break time
-                                output.append(0).append(","); // Distance equals to zero
-                            }
-                        } else if (i == 1) {
-                            Time lastTime = timeList.get(i - 1);
-                            if (lastTime != null && lastTime.getJobId().equals("drive")) { // obtain the drive distance as current job's Distance
-                                output.append(lastTime.getDistance()).append(","); // Distance
-                            } else {
-                                output.append(0).append(","); // Distance equals to zero
-                            }
-                        } else {
-                            output.append(0).append(","); // Distance equals to zero
-                        }
+        /* the break rules as applied before BreakState, with the EU limits and a list of the updated times as result */
+        private static List<Long> needBreaks(long startTime, long overallDuration, long breakTime,
+                                             long otherTime, long driveTime, long[] staged) {
+            List<Long> res = new ArrayList<>();
+            boolean flag = false; // check whether it needs resetting the drive time
+            int breaks = 0;
 
-                        output.append(seqCD).append("\n"); // SequenceNo with \n
-                        seqR++; // update the pointer
-                    }
+            // 1. break at least 45min after driving 4.5h (two separated breaks)
+            if (driveTime >= 4.5 * 60 * 60 * 1000) {
+                if (breakTime < 45 * 60 * 1000) {
+                    breakTime += 15 * 60 * 1000; // take a 15-minute-break
+                    staged[breaks++] = startTime;
+                    staged[breaks++] = 15 * 60 * 1000;
+                    startTime += 15 * 60 * 1000; // for update
+                    breakTime += 30 * 60 * 1000; // then, take a 30-minute-break
+                    staged[breaks++] = startTime;
+                    staged[breaks++] = 30 * 60 * 1000;
+                    startTime += 30 * 60 * 1000; // for update
+                    flag = true;
                 }
+            }
+            // 2. break 30min after working between 6h and 9h (here we break 45min)
+            if (overallDuration >= 6 * 60 * 60 * 1000 && overallDuration < 9 * 60 * 60 * 1000) {
+                breakTime += 45 * 60 * 1000;
+                staged[breaks++] = startTime;
+                staged[breaks++] = 45 * 60 * 1000;
+                startTime += 45 * 60 * 1000; // for update
+                flag = true;
+            }
+            // 3. break 45min after working over 9h
+            if (overallDuration >= 9 * 60 * 60 * 1000) {
+                if (breakTime < 45 * 60 * 1000) {
+                    breakTime += 45 * 60 * 1000;
+                    staged[breaks++] = startTime;
+                    staged[breaks++] = 45 * 60 * 1000;
+                    startTime += 45 * 60 * 1000; // for update
+                    flag = true;
+                }
+            }
+            // 4. reset the drive time
+            if (flag) driveTime = 0;
+            // 5. return updated data
+            res.add(breakTime); // first item
+            res.add(driveTime); // second item
+            res.add(startTime); // third item(start time as next job out of this function)
+            res.add(otherTime); // fourth item
+            return res;
+        }
 
-                // 9. output the answer
-                System.out.println(output);
+        /* ops, average and minimum time (unit: ms) of the op, after a warm-up of a quarter of the time */
+        private static double[] measure(Callable<Object> op, long time) throws Exception {
+            long warmUpEnd = System.nanoTime() + time * 250_000L;
+            do {
+                sink ^= System.identityHashCode(op.call());
+            } while (System.nanoTime() < warmUpEnd);
+            long ops = 0, total = 0, min = Long.MAX_VALUE;
+            long end = System.nanoTime() + time * 1_000_000L;
+            do {
+                long start = System.nanoTime();
+                sink ^= System.identityHashCode(op.call());
+                long elapsed = System.nanoTime() - start;
+                total += elapsed;
+                min = Math.min(min, elapsed);
+                ops++;
+            } while (System.nanoTime() < end);
+            return new double[]{ops, total / 1e6 / ops, min / 1e6};
+        }
+
+        /* average time (unit: ms) of each 'benchmark,sites' in the output of an earlier run */
+        private static Map<String, Double> readBaseline(String path) throws IOException {
+            Map<String, Double> baseline = new HashMap<>();
+            if (path == null) return baseline;
+            for (String line : Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8)) {
+                String[] cells = line.split(",");
+                if (cells.length >= 4 && NAMES.contains(cells[0])) {
+                    baseline.put(cells[0] + "," + cells[1], Double.parseDouble(cells[3]));
+                }
             }
-        } else {
-            System.out.println("There is no best individual.");
+            return baseline;
         }
     }
 
-    public static void main(String[] args) throws IllegalAccessException, ParseException {
+    public static void main(String[] args) throws Exception {
         // (0. test) start recording the time used
         long start = System.currentTimeMillis();
 
-        // 1. read input from the input.json
-        JSONObject rawData = getInput();
+        // -Daads.bench=[all|name,...] runs the benchmarks instead of solving an input
+        String bench = System.getProperty("aads.bench");
+        if (bench != null) {
+            Benchmark.run(bench);
+            return;
+        }
+        // -Daads.generate=[file] writes a synthetic instance instead of solving an input
+        String generate = System.getProperty("aads.generate");
+        if (generate != null) {
+            SyntheticInstance.fromProperties().write(Paths.get(generate));
+            return;
+        }
+
+        // 1. read input from the input.json (given as the first argument, or from the standard input)
+        String path = args.length > 0 ? args[0] : null;
+        String cacheDir = System.getProperty("aads.cache"); // -Daads.cache=<directory> enables the compiled instance cache
+        String format = SolutionWriter.checkFormat(System.getProperty("aads.format", "csv")); // -Daads.format=<csv|jsonl|binary>
+        PreProcessData data;
+        if (cacheDir != null) {
+            // 2. load the preprocessed data from its compiled instance
+            data = CompiledInstance.loadOrCompile(path, Paths.get(cacheDir));
+            if (Boolean.getBoolean("aads.timing")) {
+                System.err.println("Loading instance: " + (System.currentTimeMillis() - start) + "ms");
+            }
+        } else {
+            InputData input = getInput(path);
+            if (Boolean.getBoolean("aads.timing")) { // -Daads.timing=true
+                System.err.println("Reading input: " + input.getReadTime() + "ms, parsing input: " + input.getParseTime() + "ms");
+            }
 
-        // 2. preprocess the data
-        PreProcessData data = preProcessData(rawData);
-        tmpData = data; // assign to the global data 'tmpData'
+            // 2. preprocess the data
+            data = preProcessData(input, new SolveContext()); // ids of this solve start from zero
+        }
 
-        // 3. try to use the GGA algorithm
-        Individual bestIndividual = GGA(data);
+        // 3. try to use the GGA algorithm, with several seeds in parallel if -Daads.seeds=<K> is given
+        int seeds = Math.max(1, Integer.getInteger("aads.seeds", 1));
+        int threads = Math.max(1, Integer.getInteger("aads.threads", Runtime.getRuntime().availableProcessors()));
+        Individual bestIndividual = seeds > 1 ? solveWithSeeds(data, seeds, threads) : GGA(data);
 
         // 4. output the best individual
-        getOutput(bestIndividual);
+        getOutput(bestIndividual, format);
 
         // (5. test) output the time used
         long end = System.currentTimeMillis();